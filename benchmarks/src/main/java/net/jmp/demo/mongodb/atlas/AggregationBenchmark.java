@@ -0,0 +1,55 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)AggregationBenchmark.java 0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import java.util.Map;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the pipelines run by Aggregation.basic and
+ * Aggregation.expression, taken from Aggregation.planShapes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class AggregationBenchmark {
+    private MongoCollection<Document> collection;
+    private Map<String, PlanShape> shapes;
+
+    @Setup(Level.Trial)
+    public void setUp(final BenchmarkState state) {
+        this.collection = state.seed("aggregation");
+        this.shapes = BenchmarkState.byName(new Aggregation(state.properties, state.mongoClient).planShapes());
+    }
+
+    @Benchmark
+    public void basic(final Blackhole blackhole) {
+        this.shapes.get("basic").run(this.collection).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void expression(final Blackhole blackhole) {
+        this.shapes.get("expression").run(this.collection).forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,71 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BenchmarkRunner.java  0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+
+import org.openjdk.jmh.profile.GCProfiler;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached so
+ * that the allocation rate is reported alongside the
+ * throughput and the sampled latency percentiles. Any
+ * standard JMH command line options may be given.
+ *
+ * <pre>
+ * java -Dapp.configurationFile=config/config.properties -jar target/benchmarks.jar -p documentCount=1000
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+        super();
+    }
+
+    public static void main(final String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        final var commandLineOptions = new CommandLineOptions(args);
+
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListWithParams()
+                || commandLineOptions.shouldListProfilers() || commandLineOptions.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);    // Informational requests do not run anything
+
+            return;
+        }
+
+        final var jvmArgs = new ArrayList<String>();
+        final var configFileName = System.getProperty("app.configurationFile");
+
+        if (configFileName != null) {
+            final var configDirectory = new File(configFileName).getAbsoluteFile().getParent();
+
+            jvmArgs.add("-Dapp.configurationFile=" + new File(configFileName).getAbsolutePath());
+            jvmArgs.add("-Dlogback.configurationFile=" + configDirectory + File.separator + "logback.xml");
+        }
+
+        final var options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(jvmArgs.toArray(new String[0]))
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,146 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BenchmarkState.java   0.15.0  10/17/2026
+ * (#)BenchmarkState.java   0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * The state shared by the benchmarks that read and write
+ * generated documents. It adds to the client the documents
+ * used to seed collections, in the configured number and
+ * payload size.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState extends ClientState {
+    static final XLogger LOGGER = new XLogger(LoggerFactory.getLogger(BenchmarkState.class.getName()));
+
+    private static final String[] COLORS = {"red", "orange", "yellow", "green", "blue", "purple", "pink", "black"};
+    private static final String[] VENDORS = {"A", "B", "C", "D", "E", "F"};
+    private static final String[] CATEGORIES = {"Bakery", "Cafe", "Coffee", "Pizza", "Pasta", "Italian", "Steak", "Bagels"};
+
+    @Param({"100", "1000"})
+    public int documentCount;
+
+    @Param({"64", "1024"})
+    public int payloadSize;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUpPayload() {
+        this.payload = "x".repeat(this.payloadSize);
+    }
+
+    /**
+     * Drop the collection and insert the
+     * configured number of generated documents.
+     *
+     * @param   collectionName  java.lang.String
+     * @return                  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     */
+    MongoCollection<Document> seed(final String collectionName) {
+        final var collection = this.collection(collectionName);
+
+        collection.drop();
+        collection.insertMany(this.documents(this.documentCount));
+
+        return collection;
+    }
+
+    List<Document> documents(final int count) {
+        final List<Document> documents = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            documents.add(this.document(i));
+
+        return documents;
+    }
+
+    /**
+     * Generate a document carrying the fields read by the
+     * colors, movies and restaurants operations plus a
+     * payload of the configured size.
+     *
+     * @param   i   int
+     * @return      org.bson.Document
+     */
+    Document document(final int i) {
+        final var document = new Document("color", COLORS[i % COLORS.length])
+                .append("qty", i % 10)
+                .append("vendor", List.of(VENDORS[i % VENDORS.length], VENDORS[(i + 3) % VENDORS.length]))
+                .append("title", "Title " + i)
+                .append("runtime", i % 180)
+                .append("imdb", new Document("rating", (i % 100) / 10.0))
+                .append("stars", i % 6)
+                .append("categories", List.of(CATEGORIES[i % CATEGORIES.length], CATEGORIES[(i + 1) % CATEGORIES.length]))
+                .append("payload", this.payload);
+
+        if (i % 3 == 0)
+            document.append("rating", i % 10);
+
+        return document;
+    }
+
+    /**
+     * Index the plan shapes of an operation by method name, so
+     * that a benchmark runs the queries the operation runs.
+     *
+     * @param   shapes  java.util.List&lt;net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     * @return          java.util.Map&lt;java.lang.String, net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     */
+    static Map<String, PlanShape> byName(final List<PlanShape> shapes) {
+        final Map<String, PlanShape> byName = new LinkedHashMap<>();
+
+        for (final var shape : shapes)
+            byName.put(shape.name(), shape);
+
+        return byName;
+    }
+
+    static Properties loadProperties() {
+        final var properties = new Properties();
+        final var configFileName = System.getProperty("app.configurationFile");
+
+        if (configFileName != null) {
+            try (final var fis = new FileInputStream(configFileName)) {
+                properties.load(fis);
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+
+        return properties;
+    }
+}
@@ -0,0 +1,90 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BulkBenchmark.java    0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.bulk.BulkWriteResult;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Measures the bulkWrite calls made by Bulk.insert,
+ * Bulk.update and Bulk.delete. Each invocation writes
+ * the configured number of documents; the delete
+ * benchmark re-inserts them outside the measurement.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BulkBenchmark {
+    private BenchmarkState state;
+    private MongoCollection<Document> collection;
+    private List<Document> documents;
+    private List<WriteModel<Document>> updates;
+
+    @Setup(Level.Trial)
+    public void setUp(final BenchmarkState state) {
+        this.state = state;
+        this.collection = state.seed("bulk");
+        this.documents = state.documents(state.documentCount);
+        this.updates = new ArrayList<>(state.documentCount);
+
+        for (int i = 0; i < state.documentCount; i++)
+            this.updates.add(new UpdateOneModel<>(Filters.eq("title", "Title " + i), Updates.inc("qty", 1)));
+    }
+
+    @Setup(Level.Invocation)
+    public void reseed(final BenchmarkParams params) {
+        if (params.getBenchmark().endsWith("delete")) {
+            this.collection.drop();
+            this.collection.insertMany(this.state.documents(this.state.documentCount));
+        }
+    }
+
+    @Benchmark
+    public BulkWriteResult insert() {
+        final List<WriteModel<Document>> bulkDocuments = new ArrayList<>(this.documents.size());
+
+        for (final var document : this.documents) {
+            document.remove("_id");
+            bulkDocuments.add(new InsertOneModel<>(document));
+        }
+
+        return this.collection.bulkWrite(bulkDocuments, new BulkWriteOptions().ordered(true));
+    }
+
+    @Benchmark
+    public BulkWriteResult update() {
+        return this.collection.bulkWrite(this.updates);
+    }
+
+    @Benchmark
+    public BulkWriteResult delete() {
+        return this.collection.bulkWrite(List.of(new DeleteManyModel<>(Filters.empty())),
+                new BulkWriteOptions().ordered(false));
+    }
+}
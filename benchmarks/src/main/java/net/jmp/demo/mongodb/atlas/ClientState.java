@@ -0,0 +1,57 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)ClientState.java  0.35.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.35.0
+ * @since     0.35.0
+ */
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+
+import java.util.Properties;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The client connected to the locally started mongod named
+ * by mongodb.benchmark.uri in the configuration file. It has
+ * no parameters, so the benchmarks that seed their own data
+ * inject it to run each trial once per parameter of their
+ * own rather than once per seeding parameter as well.
+ */
+@State(Scope.Benchmark)
+public class ClientState {
+    MongoClient mongoClient;
+    Properties properties;
+    String dbName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.properties = BenchmarkState.loadProperties();
+        this.dbName = this.properties.getProperty("mongodb.benchmark.db", "benchmark");
+        this.mongoClient = MongoClients.create(this.properties.getProperty("mongodb.benchmark.uri", "mongodb://localhost:27017"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.mongoClient.getDatabase(this.dbName).drop();
+        this.mongoClient.close();
+    }
+
+    MongoCollection<Document> collection(final String collectionName) {
+        return this.mongoClient.getDatabase(this.dbName).getCollection(collectionName);
+    }
+}
@@ -0,0 +1,133 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)CodecBenchmark.java   0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+
+import org.bson.io.BasicOutputBuffer;
+
+import org.bson.types.ObjectId;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares decoding and encoding the colors, people and
+ * restaurants shapes as a Document with doing the same
+ * through the record codecs. No server is involved; the
+ * documents are encoded once and decoded from their bytes.
+ * Times are per document; run with the GC profiler and
+ * compare gc.alloc.rate.norm for the heap used by each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@OperationsPerInvocation(CodecBenchmark.DOCUMENTS)
+public class CodecBenchmark {
+    static final int DOCUMENTS = 1_000;
+
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    @Param({"color", "person", "restaurant"})
+    public String shape;
+
+    private final DocumentCodec documentCodec = new DocumentCodec(RecordCodecs.REGISTRY);
+    private final BasicOutputBuffer output = new BasicOutputBuffer(1 << 12);
+    private final List<byte[]> encoded = new ArrayList<>(DOCUMENTS);
+    private final List<Object> records = new ArrayList<>(DOCUMENTS);
+    private final List<Document> documents = new ArrayList<>(DOCUMENTS);
+    private Codec<Object> recordCodec;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        for (int i = 0; i < DOCUMENTS; i++) {
+            final Object value = switch (this.shape) {
+                case "color" -> new Color(new ObjectId(), "color-" + i, i);
+                case "person" -> new Person(new ObjectId(), "Person " + i, 18 + i % 60, i % 2 == 0 ? "New York, NY" : null);
+                default -> new Restaurant(new ObjectId(),
+                        "Restaurant " + i,
+                        new Restaurant.Contact("555-01" + i % 100, "restaurant" + i + "@example.org", -74.0 + i * 1e-4, 40.7 + i * 1e-4),
+                        i % 6,
+                        List.of("Bakery", "Cafe", "Coffee"));
+            };
+
+            this.recordCodec = (Codec<Object>) RecordCodecs.REGISTRY.get(value.getClass());
+
+            final var raw = new RawBsonDocument(value, this.recordCodec);
+
+            final var bytes = new byte[raw.getByteBuffer().remaining()];
+
+            raw.getByteBuffer().get(bytes);
+
+            this.records.add(value);
+            this.encoded.add(bytes);
+            this.documents.add(this.documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DECODER_CONTEXT));
+        }
+    }
+
+    @Benchmark
+    public void decodeDocument(final Blackhole blackhole) {
+        for (final var bytes : this.encoded) {
+            try (final var reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+                blackhole.consume(this.documentCodec.decode(reader, DECODER_CONTEXT));
+            }
+        }
+    }
+
+    @Benchmark
+    public void decodeRecord(final Blackhole blackhole) {
+        for (final var bytes : this.encoded) {
+            try (final var reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+                blackhole.consume(this.recordCodec.decode(reader, DECODER_CONTEXT));
+            }
+        }
+    }
+
+    @Benchmark
+    public void encodeDocument(final Blackhole blackhole) {
+        for (final var document : this.documents) {
+            this.output.truncateToPosition(0);
+            this.documentCodec.encode(new BsonBinaryWriter(this.output), document, ENCODER_CONTEXT);
+            blackhole.consume(this.output.getPosition());
+        }
+    }
+
+    @Benchmark
+    public void encodeRecord(final Blackhole blackhole) {
+        for (final var value : this.records) {
+            this.output.truncateToPosition(0);
+            this.recordCodec.encode(new BsonBinaryWriter(this.output), value, ENCODER_CONTEXT);
+            blackhole.consume(this.output.getPosition());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)DumpBenchmark.java    0.15.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.15.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares a full-collection dump that decodes every
+ * document into a Document and calls toJson() with the
+ * raw BSON path through Helpers and a JsonDocumentSink.
+ * Run with the GC profiler and compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DumpBenchmark {
+    private BenchmarkState state;
+    private MongoCollection<Document> collection;
+
+    @Setup(Level.Trial)
+    public void setUp(final BenchmarkState state) {
+        this.state = state;
+        this.collection = state.seed("dump");
+    }
+
+    @Benchmark
+    public void documentDump() throws IOException {
+        try (final var writer = Writer.nullWriter()) {
+            for (final var document : this.collection.find()) {
+                writer.write(document.toJson());
+                writer.write('\n');
+            }
+        }
+    }
+
+    @Benchmark
+    public void rawDump() throws IOException {
+        try (final var sink = new JsonDocumentSink(Writer.nullWriter())) {
+            Helpers.printAllDocuments(this.state.mongoClient, this.state.dbName, "dump", sink, BenchmarkState.LOGGER);
+        }
+    }
+}
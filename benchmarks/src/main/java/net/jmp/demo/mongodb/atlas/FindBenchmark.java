@@ -0,0 +1,63 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)FindBenchmark.java    0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import java.util.Map;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the filtered, projected and sorted cursor
+ * reads made by Find.findOneDocument and
+ * Find.findMultipleDocuments, taken from Find.planShapes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FindBenchmark {
+    private MongoCollection<Document> collection;
+    private Map<String, PlanShape> shapes;
+
+    @Setup(Level.Trial)
+    public void setUp(final BenchmarkState state) {
+        this.collection = state.seed("find");
+        this.shapes = BenchmarkState.byName(new Find(state.properties, state.mongoClient).planShapes());
+    }
+
+    @Benchmark
+    public void findOneDocument(final Blackhole blackhole) {
+        this.run("findOneDocument", blackhole);
+    }
+
+    @Benchmark
+    public void findMultipleDocuments(final Blackhole blackhole) {
+        this.run("findMultipleDocuments", blackhole);
+    }
+
+    private void run(final String name, final Blackhole blackhole) {
+        try (final var cursor = this.shapes.get(name).run(this.collection).iterator()) {
+            while (cursor.hasNext())
+                blackhole.consume(cursor.next());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)GeoBenchmark.java 0.35.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.35.0
+ * @since     0.35.0
+ */
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Finds the nearest restaurants in a category to a random
+ * point with $near and $geoNear on the 2dsphere index, and
+ * with a client-side scan of every restaurant in the
+ * category. The restaurants are generated once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class GeoBenchmark {
+    private static final String CATEGORY = "Bakery";
+    private static final int NEAREST = 10;
+    private static final double MAX_METERS = 5_000;
+
+    @Param({"10000", "1000000"})
+    public int restaurants;
+
+    private GeoRestaurants geo;
+    private SplittableRandom random;
+    private double[] point;
+
+    @Setup(Level.Trial)
+    public void setUp(final ClientState state) {
+        final var collection = state.collection("geo");
+
+        collection.drop();
+
+        this.geo = new GeoRestaurants(collection);
+        this.geo.generate(this.restaurants, 42L, 10_000);
+        this.geo.ensureIndex();
+        this.random = new SplittableRandom(7L);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextPoint() {
+        this.point = GeoRestaurants.randomPoint(this.random);
+    }
+
+    @Benchmark
+    public List<Document> near() {
+        return this.geo.near(this.point[0], this.point[1], CATEGORY, NEAREST, MAX_METERS);
+    }
+
+    @Benchmark
+    public List<Document> geoNear() {
+        return this.geo.geoNear(this.point[0], this.point[1], CATEGORY, NEAREST, MAX_METERS);
+    }
+
+    @Benchmark
+    public List<Document> bruteForce() {
+        return this.geo.bruteForce(this.point[0], this.point[1], CATEGORY, NEAREST, MAX_METERS);
+    }
+}
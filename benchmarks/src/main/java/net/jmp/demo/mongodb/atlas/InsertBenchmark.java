@@ -0,0 +1,64 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)InsertBenchmark.java  0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.client.result.InsertOneResult;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the insertOne and insertMany calls
+ * made by Insert.insertOneDocument and
+ * Insert.insertMultipleDocuments.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class InsertBenchmark {
+    private MongoCollection<Document> collection;
+    private List<Document> documents;
+    private Document document;
+
+    @Setup(Level.Iteration)
+    public void setUp(final BenchmarkState state) {
+        this.collection = state.collection("insert");
+        this.collection.drop();
+
+        this.documents = state.documents(state.documentCount);
+        this.document = state.document(0);
+    }
+
+    @Benchmark
+    public InsertOneResult insertOneDocument() {
+        this.document.remove("_id");
+
+        return this.collection.insertOne(this.document);
+    }
+
+    @Benchmark
+    public InsertManyResult insertMultipleDocuments() {
+        this.documents.forEach(doc -> doc.remove("_id"));
+
+        return this.collection.insertMany(this.documents);
+    }
+}
@@ -0,0 +1,270 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PlanRegression.java   0.27.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.27.0
+ * @since     0.27.0
+ */
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.bson.Document;
+
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Snapshots the winning plan and execution statistics of
+ * every query and aggregation run by Query, Find and
+ * Aggregation, and compares them with a baseline. The shapes
+ * are explained against collections seeded with the same
+ * generated documents as the benchmarks, so the figures
+ * depend only on the number of documents and the server.
+ *
+ * <p>Recording writes the baseline file; comparing reports
+ * every shape whose plan changed, that is new or missing, or
+ * whose documents or keys examined per document returned
+ * grew past the threshold times the baseline ratio, and exits
+ * with status 1 when there is any.
+ *
+ * <pre>
+ * java -Dapp.configurationFile=config/config.properties -cp target/benchmarks.jar net.jmp.demo.mongodb.atlas.PlanRegression record
+ * java -Dapp.configurationFile=config/config.properties -cp target/benchmarks.jar net.jmp.demo.mongodb.atlas.PlanRegression compare
+ * </pre>
+ */
+public final class PlanRegression {
+    static final int FORMAT_VERSION = 2;
+
+    /* The parts of a plan that make up its shape; bounds, counts and timings are left out */
+
+    private static final Set<String> PLAN_FIELDS = Set.of("stage", "inputStage", "inputStages", "queryPlan", "indexName", "keyPattern", "direction");
+
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .indent(true)
+            .build();
+
+    private static final XLogger LOGGER = new XLogger(LoggerFactory.getLogger(PlanRegression.class.getName()));
+
+    private final Properties properties;
+    private final Path baselineFile;
+    private final double threshold;
+    private final int documentCount;
+
+    private PlanRegression(final Properties properties) {
+        super();
+
+        this.properties = properties;
+
+        this.baselineFile = Path.of(properties.getProperty("mongodb.plans.baseline", "config/plan-baseline.json"));
+        this.threshold = Double.parseDouble(properties.getProperty("mongodb.plans.threshold", "2.0"));
+        this.documentCount = Integer.parseInt(properties.getProperty("mongodb.plans.documentCount", "10000"));
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final var record = args.length > 0 && "record".equalsIgnoreCase(args[0]);
+        final var regression = new PlanRegression(BenchmarkState.loadProperties());
+        final var snapshot = regression.snapshot();
+
+        if (record) {
+            regression.record(snapshot);
+        } else if (!regression.compare(snapshot)) {
+            System.exit(1);
+        }
+    }
+
+    /*
+     * Seed one collection per module and explain each of its
+     * shapes. Shapes are keyed by module and method name.
+     */
+
+    private Document snapshot() {
+        LOGGER.entry();
+
+        final var state = new BenchmarkState();
+
+        state.documentCount = this.documentCount;
+        state.payloadSize = 64;
+        state.setUp();
+        state.setUpPayload();
+
+        final var shapes = new Document();
+        final String serverVersion;
+
+        try {
+            final Map<String, List<PlanShape>> modules = new LinkedHashMap<>();
+
+            modules.put("query", new Query(this.properties, state.mongoClient).planShapes());
+            modules.put("find", new Find(this.properties, state.mongoClient).planShapes());
+            modules.put("aggregation", new Aggregation(this.properties, state.mongoClient).planShapes());
+
+            for (final var module : modules.entrySet()) {
+                final var collection = state.seed(module.getKey());
+
+                for (final var shape : module.getValue())
+                    shapes.append(module.getKey() + "." + shape.name(), this.capture(shape.explain(collection)));
+            }
+
+            serverVersion = state.mongoClient.getDatabase("admin").runCommand(new Document("buildInfo", 1)).getString("version");
+        } finally {
+            state.tearDown();
+        }
+
+        final var snapshot = new Document("version", FORMAT_VERSION)
+                .append("recorded", Instant.now().toString())
+                .append("serverVersion", serverVersion)
+                .append("documentCount", this.documentCount)
+                .append("shapes", shapes);
+
+        LOGGER.exit();
+
+        return snapshot;
+    }
+
+    private Document capture(final Document explanation) {
+        final var queryPlanner = PlanShape.section(explanation, "queryPlanner");
+        final var stats = PlanShape.section(explanation, "executionStats");
+        final List<String> pipeline = new ArrayList<>();
+
+        if (explanation.get("stages") instanceof List<?> stages) {
+            for (final var stage : stages)
+                if (stage instanceof Document document && !document.isEmpty())
+                    pipeline.add(document.keySet().iterator().next());
+        }
+
+        final var capture = new Document("plan", queryPlanner == null ? new Document() : this.shapeOf(queryPlanner.get("winningPlan")))
+                .append("pipeline", pipeline);
+
+        for (final var key : List.of("totalKeysExamined", "totalDocsExamined", "nReturned", "executionTimeMillis"))
+            capture.append(key, stats != null && stats.get(key) instanceof Number number ? number.longValue() : 0L);
+
+        return capture;
+    }
+
+    private Object shapeOf(final Object node) {
+        if (node instanceof Document document) {
+            final var shape = new Document();
+
+            document.forEach((key, value) -> {
+                if ("keyPattern".equals(key))
+                    shape.append(key, value);
+                else if (PLAN_FIELDS.contains(key))
+                    shape.append(key, this.shapeOf(value));
+            });
+
+            return shape;
+        }
+
+        if (node instanceof List<?> list)
+            return list.stream().map(this::shapeOf).toList();
+
+        return node;
+    }
+
+    private void record(final Document snapshot) throws IOException {
+        final var parent = this.baselineFile.toAbsolutePath().getParent();
+
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        Files.writeString(this.baselineFile, snapshot.toJson(JSON_SETTINGS) + System.lineSeparator(), StandardCharsets.UTF_8);
+
+        LOGGER.info("Recorded {} shape(s) in {}", snapshot.get("shapes", Document.class).size(), this.baselineFile);
+    }
+
+    private boolean compare(final Document snapshot) throws IOException {
+        LOGGER.entry();
+
+        final var baseline = Document.parse(Files.readString(this.baselineFile, StandardCharsets.UTF_8));
+
+        if (baseline.getInteger("version", 0) != FORMAT_VERSION)
+            throw new IllegalStateException("Baseline format version " + baseline.get("version") + " is not " + FORMAT_VERSION + "; record it again");
+
+        if (!baseline.get("documentCount").equals(snapshot.get("documentCount")) || !baseline.get("serverVersion").equals(snapshot.get("serverVersion")))
+            LOGGER.warn("Baseline recorded with {} document(s) on {}; comparing {} document(s) on {}",
+                    baseline.get("documentCount"),
+                    baseline.get("serverVersion"),
+                    snapshot.get("documentCount"),
+                    snapshot.get("serverVersion"));
+
+        final var expected = baseline.get("shapes", Document.class);
+        final var actual = snapshot.get("shapes", Document.class);
+        final List<String> regressions = new ArrayList<>();
+
+        for (final var name : expected.keySet())
+            if (!actual.containsKey(name))
+                regressions.add(name + ": missing; it is in the baseline but no longer run");
+
+        for (final var entry : actual.entrySet()) {
+            final var name = entry.getKey();
+            final var current = (Document) entry.getValue();
+            final var previous = expected.get(name, Document.class);
+
+            if (previous == null) {
+                regressions.add(name + ": new; record the baseline again");
+
+                continue;
+            }
+
+            final var previousPlan = this.toJson(previous.get("plan")) + previous.get("pipeline");
+            final var currentPlan = this.toJson(current.get("plan")) + current.get("pipeline");
+
+            if (!previousPlan.equals(currentPlan))
+                regressions.add(name + ": plan changed from " + previousPlan + " to " + currentPlan);
+
+            this.compareRatio(name, "totalDocsExamined", previous, current, regressions);
+            this.compareRatio(name, "totalKeysExamined", previous, current, regressions);
+        }
+
+        regressions.forEach(LOGGER::warn);
+
+        LOGGER.info("{} shape(s) compared with {}; {} regression(s)", actual.size(), this.baselineFile, regressions.size());
+        LOGGER.exit(regressions.isEmpty());
+
+        return regressions.isEmpty();
+    }
+
+    /* The examined count per document returned; a query returning nothing counts as returning one */
+
+    private void compareRatio(final String name, final String key, final Document previous, final Document current, final List<String> regressions) {
+        final var previousRatio = this.ratio(previous, key);
+        final var currentRatio = this.ratio(current, key);
+
+        if (currentRatio > 1.0 && currentRatio > previousRatio * this.threshold)
+            regressions.add(String.format("%s: %s per document returned rose from %.2f to %.2f", name, key, previousRatio, currentRatio));
+    }
+
+    private double ratio(final Document capture, final String key) {
+        final var examined = ((Number) capture.get(key)).doubleValue();
+        final var returned = ((Number) capture.get("nReturned")).doubleValue();
+
+        return examined / Math.max(returned, 1.0);
+    }
+
+    private String toJson(final Object plan) {
+        return plan instanceof Document document ? document.toJson() : String.valueOf(plan);
+    }
+}
@@ -0,0 +1,83 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)QueryBenchmark.java   0.11.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.11.0
+ * @since     0.11.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import java.util.Map;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the queries run by the Query operator methods,
+ * taken from Query.planShapes so that each runs with the
+ * filter, projection and sort the method uses.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class QueryBenchmark {
+    private MongoCollection<Document> collection;
+    private Map<String, PlanShape> shapes;
+
+    @Setup(Level.Trial)
+    public void setUp(final BenchmarkState state) {
+        this.collection = state.seed("query");
+        this.shapes = BenchmarkState.byName(new Query(state.properties, state.mongoClient).planShapes());
+    }
+
+    @Benchmark
+    public void comparisonOperators(final Blackhole blackhole) {
+        this.run("comparisonOperators", blackhole);
+    }
+
+    @Benchmark
+    public void logicalOperators(final Blackhole blackhole) {
+        this.run("logicalOperators", blackhole);
+    }
+
+    @Benchmark
+    public void arraySizeOperator(final Blackhole blackhole) {
+        this.run("arraySizeOperator", blackhole);
+    }
+
+    @Benchmark
+    public void arrayValueOperator(final Blackhole blackhole) {
+        this.run("arrayValueOperator", blackhole);
+    }
+
+    @Benchmark
+    public void elementOperators(final Blackhole blackhole) {
+        this.run("elementOperators", blackhole);
+    }
+
+    @Benchmark
+    public void evaluationOperators(final Blackhole blackhole) {
+        this.run("evaluationOperators", blackhole);
+    }
+
+    private void run(final String name, final Blackhole blackhole) {
+        try (final var cursor = this.shapes.get(name).run(this.collection).iterator()) {
+            while (cursor.hasNext())
+                blackhole.consume(cursor.next());
+        }
+    }
+}
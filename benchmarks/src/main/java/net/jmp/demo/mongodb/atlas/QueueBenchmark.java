@@ -0,0 +1,96 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)QueueBenchmark.java   0.29.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.29.0
+ * @since     0.29.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.Filters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Drains a work queue of the same number of jobs with a
+ * growing number of consumers. Throughput is in jobs; the
+ * claim latency percentiles of each iteration are logged,
+ * since JMH only times the drain as a whole.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@OperationsPerInvocation(QueueBenchmark.JOBS)
+public class QueueBenchmark {
+    static final int JOBS = 2_000;
+
+    @Param({"1", "4", "16", "64"})
+    public int consumers;
+
+    private MongoCollection<Document> collection;
+    private WorkQueue queue;
+    private List<Document> payloads;
+    private Histogram claimLatency;
+
+    @Setup(Level.Trial)
+    public void setUp(final ClientState state) {
+        this.collection = state.collection("jobs");
+        this.collection.drop();
+
+        this.queue = new WorkQueue(this.collection, new BulkRetry(4, 10, 200), 30_000, 5, 1_000);
+        this.queue.ensureIndex();
+        this.payloads = new ArrayList<>(JOBS);
+        this.claimLatency = new Histogram(3);
+
+        for (int i = 0; i < JOBS; i++)
+            this.payloads.add(new Document("n", i));
+    }
+
+    @Setup(Level.Invocation)
+    public void enqueue() {
+        this.queue.enqueue(this.payloads, 0, 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatency() {
+        this.claimLatency.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void logLatency() {
+        BenchmarkState.LOGGER.info("{} consumer(s): claim p50 {} us, p99 {} us, max {} us",
+                this.consumers,
+                this.claimLatency.getValueAtPercentile(50.0),
+                this.claimLatency.getValueAtPercentile(99.0),
+                this.claimLatency.getMaxValue());
+
+        this.collection.deleteMany(Filters.eq("status", WorkQueue.DONE));
+    }
+
+    @Benchmark
+    public long drain() {
+        final var result = this.queue.drain(this.consumers, payload -> true, 0);
+
+        this.claimLatency.add(result.claimLatency());
+
+        return result.acked();
+    }
+}
@@ -0,0 +1,113 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)UpsertBenchmark.java  0.25.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.25.0
+ * @since     0.25.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Upserts counters for random keys from several threads at
+ * once, either one updateOne at a time on an unindexed key,
+ * as Upsert does, or through an upsert pipeline per thread
+ * under a unique index. Throughput is in upserts; the number
+ * of keys held by more than one document, which should be
+ * zero for the pipeline, is logged after each trial. Fewer
+ * keys mean more contention on each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(1)
+@OperationsPerInvocation(UpsertBenchmark.UPSERTS)
+public class UpsertBenchmark {
+    static final int UPSERTS = 500;
+
+    private static final String KEY = "color";
+
+    @Param({"100", "10000"})
+    public int keys;
+
+    private MongoCollection<Document> unindexed;
+    private MongoCollection<Document> indexed;
+    private String indexName;
+    private BulkRetry retry;
+
+    /**
+     * The pipeline of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+        UpsertPipeline pipeline;
+
+        @Setup(Level.Trial)
+        public void setUp(final UpsertBenchmark benchmark) {
+            this.pipeline = new UpsertPipeline(benchmark.indexed, KEY, benchmark.indexName, benchmark.retry, UPSERTS, 3);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(final ClientState state) {
+        this.unindexed = state.collection("upsertsUnindexed");
+        this.indexed = state.collection("upsertsIndexed");
+        this.retry = new BulkRetry(4, 10, 200);
+        this.indexName = UpsertPipeline.ensureUniqueIndex(this.indexed, KEY);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.unindexed.drop();
+        this.indexed.drop();
+
+        UpsertPipeline.ensureUniqueIndex(this.indexed, KEY);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        BenchmarkState.LOGGER.info("Duplicate keys: {} unindexed, {} through the pipeline",
+                UpsertPipeline.countDuplicates(this.unindexed, KEY),
+                UpsertPipeline.countDuplicates(this.indexed, KEY));
+    }
+
+    @Benchmark
+    public void updateOne() {
+        final var random = ThreadLocalRandom.current();
+        final var options = new UpdateOptions().upsert(true);
+
+        for (int i = 0; i < UPSERTS; i++)
+            this.unindexed.updateOne(Filters.eq(KEY, "color-" + random.nextInt(this.keys)), Updates.inc("quantity", 1), options);
+    }
+
+    @Benchmark
+    public UpsertPipeline.Result pipeline(final Writer writer) {
+        final var random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < UPSERTS; i++)
+            writer.pipeline.upsert("color-" + random.nextInt(this.keys), new Document(), new Document("quantity", 1));
+
+        writer.pipeline.flush();
+
+        return writer.pipeline.getResult();
+    }
+}
@@ -1,6 +1,13 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Aggregation.java  0.35.0  10/17/2026
+ * (#)Aggregation.java  0.34.0  10/17/2026
+ * (#)Aggregation.java  0.33.0  10/17/2026
+ * (#)Aggregation.java  0.32.0  10/17/2026
+ * (#)Aggregation.java  0.31.0  10/17/2026
+ * (#)Aggregation.java  0.27.0  10/17/2026
+ * (#)Aggregation.java  0.21.0  10/17/2026
  * (#)Aggregation.java  0.10.1  12/15/2023
  * (#)Aggregation.java  0.10.0  12/09/2023
  *
@@ -8,19 +15,27 @@ package net.jmp.demo.mongodb.atlas;
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.10.1
+ * @version   0.35.0
  * @since     0.10.0
  */
 
 import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
 
 import com.mongodb.client.model.*;
 
 import java.util.*;
 
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.locks.LockSupport;
+
 import org.bson.Document;
 
+import org.bson.conversions.Bson;
+
 import org.slf4j.LoggerFactory;
 
 import org.slf4j.ext.XLogger;
@@ -30,6 +45,48 @@ final class Aggregation {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final boolean cacheEnabled;
+    private final long cacheMaxBytes;
+    private final long cacheTimeToLiveMillis;
+    private final boolean cacheInvalidate;
+    private final int cacheRepeats;
+    private final boolean viewEnabled;
+    private final String viewCollectionName;
+    private final String viewMarksCollectionName;
+    private final String viewMarkField;
+    private final long viewLagMillis;
+    private final boolean histogramEnabled;
+    private final String histogramCheckpointsCollectionName;
+    private final int histogramCapacity;
+    private final int histogramCheckpointEvery;
+    private final boolean largeEnabled;
+    private final int largePartitions;
+    private final String largeKey;
+    private final PartitionedScan.Strategy largeStrategy;
+    private final int largeBatchSize;
+    private final boolean geoEnabled;
+    private final String geoCategory;
+    private final int geoNearest;
+    private final double geoMaxMeters;
+    private final int geoGenerated;
+    private final List<Bson> bakeryPipeline = Arrays.asList(
+            Aggregates.match(Filters.eq("categories", "Bakery")),
+            Aggregates.group("$stars", Accumulators.sum("count", 1))
+    );
+    private final List<Bson> firstCategoryPipeline = Arrays.asList(
+            Aggregates.project(
+                    Projections.fields(
+                            Projections.excludeId(),
+                            Projections.include("name"),
+                            Projections.computed(
+                                    "firstCategory",
+                                    new Document("$arrayElemAt", Arrays.asList("$categories", 0))
+                            )
+                    )
+            )
+    );
+
+    private AggregationCache cache;
 
     Aggregation(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -38,6 +95,30 @@ final class Aggregation {
 
         this.dbName = properties.getProperty("mongodb.aggregation.db", "training");
         this.collectionName = properties.getProperty("mongodb.aggregation.collection", "restaurants");
+        this.cacheEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.cache.enabled", "false"));
+        this.cacheMaxBytes = Long.parseLong(properties.getProperty("mongodb.aggregation.cache.maxBytes", "16777216"));
+        this.cacheTimeToLiveMillis = Long.parseLong(properties.getProperty("mongodb.aggregation.cache.ttlMillis", "60000"));
+        this.cacheInvalidate = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.cache.invalidate", "true"));
+        this.cacheRepeats = Integer.parseInt(properties.getProperty("mongodb.aggregation.cache.repeats", "100"));
+        this.viewEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.view.enabled", "false"));
+        this.viewCollectionName = properties.getProperty("mongodb.aggregation.view.collection", "restaurantsByCategory");
+        this.viewMarksCollectionName = properties.getProperty("mongodb.aggregation.view.marks", "materializedViews");
+        this.viewMarkField = properties.getProperty("mongodb.aggregation.view.markField", "updatedAt");
+        this.viewLagMillis = Long.parseLong(properties.getProperty("mongodb.aggregation.view.lagMillis", "5000"));
+        this.histogramEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.histogram.enabled", "false"));
+        this.histogramCheckpointsCollectionName = properties.getProperty("mongodb.aggregation.histogram.checkpoints", "histogramCheckpoints");
+        this.histogramCapacity = Integer.parseInt(properties.getProperty("mongodb.aggregation.histogram.capacity", "1024"));
+        this.histogramCheckpointEvery = Integer.parseInt(properties.getProperty("mongodb.aggregation.histogram.checkpointEvery", "100"));
+        this.largeEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.large.enabled", "false"));
+        this.largePartitions = Integer.parseInt(properties.getProperty("mongodb.aggregation.large.partitions", "8"));
+        this.largeKey = properties.getProperty("mongodb.aggregation.large.key", "_id");
+        this.largeStrategy = PartitionedScan.Strategy.valueOf(properties.getProperty("mongodb.aggregation.large.strategy", "bucket_auto").toUpperCase());
+        this.largeBatchSize = Integer.parseInt(properties.getProperty("mongodb.aggregation.large.batchSize", "1000"));
+        this.geoEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.aggregation.geo.enabled", "false"));
+        this.geoCategory = properties.getProperty("mongodb.aggregation.geo.category", "Bakery");
+        this.geoNearest = Integer.parseInt(properties.getProperty("mongodb.aggregation.geo.nearest", "3"));
+        this.geoMaxMeters = Double.parseDouble(properties.getProperty("mongodb.aggregation.geo.maxMeters", "10000"));
+        this.geoGenerated = Integer.parseInt(properties.getProperty("mongodb.aggregation.geo.generated", "0"));
     }
 
     void run() {
@@ -48,10 +129,31 @@ final class Aggregation {
 
         try {
             this.insertData();
+
+            if (this.cacheEnabled)
+                this.openCache();
+
             this.basic();
             this.explain();
             this.expression();
+
+            if (this.cache != null)
+                this.repeat();
+
+            if (this.viewEnabled)
+                this.materializedView();
+
+            if (this.histogramEnabled)
+                this.liveHistogram();
+
+            if (this.geoEnabled)
+                this.geo();
         } finally {
+            if (this.cache != null) {
+                this.cache.close();
+                this.cache = null;
+            }
+
             this.dropCollection();  // Will delete any documents in the collection
         }
 
@@ -76,19 +178,19 @@ final class Aggregation {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-
-        final var result = collection.insertMany(Arrays.asList(
-                new Document("name", "Sun Bakery Trattoria").append("contact", new Document().append("phone", "386-555-0189").append("email", "SunBakeryTrattoria@example.org").append("location", Arrays.asList(-74.0056649, 40.7452371))).append("stars", 4).append("categories", Arrays.asList("Pizza", "Pasta", "Italian", "Coffee", "Sandwiches")),
-                new Document("name", "Blue Bagels Grill").append("contact", new Document().append("phone", "786-555-0102").append("email", "BlueBagelsGrill@example.com").append("location", Arrays.asList(-73.92506, 40.8275556))).append("stars", 3).append("categories", Arrays.asList("Bagels", "Cookies", "Sandwiches")),
-                new Document("name", "XYZ Bagels Restaurant").append("contact", new Document().append("phone", "435-555-0190").append("email", "XYZBagelsRestaurant@example.net").append("location", Arrays.asList(-74.0707363, 40.59321569999999))).append("stars", 4).append("categories", Arrays.asList("Bagels", "Sandwiches", "Coffee")),
-                new Document("name", "Hot Bakery Cafe").append("contact", new Document().append("phone", "264-555-0171").append("email", "HotBakeryCafe@example.net").append("location", Arrays.asList(-73.96485799999999, 40.761899))).append("stars", 4).append("categories", Arrays.asList("Bakery", "Cafe", "Coffee", "Dessert")),
-                new Document("name", "Green Feast Pizzeria").append("contact", new Document().append("phone", "840-555-0102").append("email", "GreenFeastPizzeria@example.com").append("location", Arrays.asList(-74.1220973, 40.6129407))).append("stars", 2).append("categories", Arrays.asList("Pizza", "Italian")),
-                new Document("name", "ZZZ Pasta Buffet").append("contact", new Document().append("phone", "769-555-0152").append("email", "ZZZPastaBuffet@example.com").append("location", Arrays.asList(-73.9446421, 40.7253944))).append("stars", 0).append("categories", Arrays.asList("Pasta", "Italian", "Buffet", "Cafeteria")),
-                new Document("name", "XYZ Coffee Bar").append("contact", new Document().append("phone", "644-555-0193").append("email", "XYZCoffeeBar@example.net").append("location", Arrays.asList(-74.0166091, 40.6284767))).append("stars", 5).append("categories", Arrays.asList("Coffee", "Cafe", "Bakery", "Chocolates")),
-                new Document("name", "456 Steak Restaurant").append("contact", new Document().append("phone", "990-555-0165").append("email", "456SteakRestaurant@example.com").append("location", Arrays.asList(-73.9365108, 40.8497077))).append("stars", 0).append("categories", Arrays.asList("Steak", "Seafood")),
-                new Document("name", "456 Cookies Shop").append("contact", new Document().append("phone", "604-555-0149").append("email", "456CookiesShop@example.org").append("location", Arrays.asList(-73.8850023, 40.7494272))).append("stars", 4).append("categories", Arrays.asList("Bakery", "Cookies", "Cake", "Coffee")),
-                new Document("name", "XYZ Steak Buffet").append("contact", new Document().append("phone", "229-555-0197").append("email", "XYZSteakBuffet@example.org").append("location", Arrays.asList(-73.9799932, 40.7660886))).append("stars", 3).append("categories", Arrays.asList("Steak", "Salad", "Chinese"))
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Restaurant.class);
+
+        final var result = collection.insertMany(List.of(
+                new Restaurant("Sun Bakery Trattoria", new Restaurant.Contact("386-555-0189", "SunBakeryTrattoria@example.org", -74.0056649, 40.7452371), 4, List.of("Pizza", "Pasta", "Italian", "Coffee", "Sandwiches")),
+                new Restaurant("Blue Bagels Grill", new Restaurant.Contact("786-555-0102", "BlueBagelsGrill@example.com", -73.92506, 40.8275556), 3, List.of("Bagels", "Cookies", "Sandwiches")),
+                new Restaurant("XYZ Bagels Restaurant", new Restaurant.Contact("435-555-0190", "XYZBagelsRestaurant@example.net", -74.0707363, 40.59321569999999), 4, List.of("Bagels", "Sandwiches", "Coffee")),
+                new Restaurant("Hot Bakery Cafe", new Restaurant.Contact("264-555-0171", "HotBakeryCafe@example.net", -73.96485799999999, 40.761899), 4, List.of("Bakery", "Cafe", "Coffee", "Dessert")),
+                new Restaurant("Green Feast Pizzeria", new Restaurant.Contact("840-555-0102", "GreenFeastPizzeria@example.com", -74.1220973, 40.6129407), 2, List.of("Pizza", "Italian")),
+                new Restaurant("ZZZ Pasta Buffet", new Restaurant.Contact("769-555-0152", "ZZZPastaBuffet@example.com", -73.9446421, 40.7253944), 0, List.of("Pasta", "Italian", "Buffet", "Cafeteria")),
+                new Restaurant("XYZ Coffee Bar", new Restaurant.Contact("644-555-0193", "XYZCoffeeBar@example.net", -74.0166091, 40.6284767), 5, List.of("Coffee", "Cafe", "Bakery", "Chocolates")),
+                new Restaurant("456 Steak Restaurant", new Restaurant.Contact("990-555-0165", "456SteakRestaurant@example.com", -73.9365108, 40.8497077), 0, List.of("Steak", "Seafood")),
+                new Restaurant("456 Cookies Shop", new Restaurant.Contact("604-555-0149", "456CookiesShop@example.org", -73.8850023, 40.7494272), 4, List.of("Bakery", "Cookies", "Cake", "Coffee")),
+                new Restaurant("XYZ Steak Buffet", new Restaurant.Contact("229-555-0197", "XYZSteakBuffet@example.org", -73.9799932, 40.7660886), 3, List.of("Steak", "Salad", "Chinese"))
         ));
 
         this.logger.info("Documents inserted: {}", result.getInsertedIds().size());
@@ -102,12 +204,10 @@ final class Aggregation {
         final var database = this.mongoClient.getDatabase(this.dbName);
         final var collection = database.getCollection(this.collectionName);
 
-        collection.aggregate(
-                Arrays.asList(
-                        Aggregates.match(Filters.eq("categories", "Bakery")),
-                        Aggregates.group("$stars", Accumulators.sum("count", 1))
-                )
-        ).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+        if (this.largeEnabled)
+            this.partitionedBasic(collection).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+        else
+            this.aggregate(collection, this.bakeryPipeline).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
 
         /*
          * {"_id": 4, "count": 2} // Two four-star bakeries
@@ -117,18 +217,37 @@ final class Aggregation {
         this.logger.exit();
     }
 
+    /*
+     * The bakery pipeline as one aggregation per key range,
+     * each allowed to spill to disk, merged on the client. The
+     * filter, group key and measures are taken from the pipeline.
+     */
+
+    private List<Document> partitionedBasic(final MongoCollection<Document> collection) {
+        this.logger.entry(collection);
+
+        final var scan = new PartitionedScan(collection, this.largeKey, this.largePartitions, this.largeStrategy, this.largeBatchSize);
+        final var result = new PartitionedAggregation(collection, scan, this.largeBatchSize).aggregate(this.bakeryPipeline);
+
+        if (this.logger.isInfoEnabled())
+            this.logger.info("{} group(s) merged from {} partial group(s) of {} partition(s) in {} ms",
+                    result.groups().size(),
+                    result.partialGroups(),
+                    result.partitions(),
+                    result.millis());
+
+        this.logger.exit(result.groups());
+
+        return result.groups();
+    }
+
     private void explain() {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
         final var collection = database.getCollection(this.collectionName);
 
-        final var aggregationIterable = collection.aggregate(
-                Arrays.asList(
-                        Aggregates.match(Filters.eq("categories", "Bakery")),
-                        Aggregates.group("$stars", Accumulators.sum("count", 1))
-                )
-        );
+        final var aggregationIterable = collection.aggregate(this.bakeryPipeline);
 
         final Document explanation = aggregationIterable.explain(ExplainVerbosity.EXECUTION_STATS);
 
@@ -159,24 +278,270 @@ final class Aggregation {
         final var database = this.mongoClient.getDatabase(this.dbName);
         final var collection = database.getCollection(this.collectionName);
 
-        collection.aggregate(
-                Arrays.asList(
-                        Aggregates.project(
-                                Projections.fields(
-                                        Projections.excludeId(),
-                                        Projections.include("name"),
-                                        Projections.computed(
-                                                "firstCategory",
-                                                new Document("$arrayElemAt", Arrays.asList("$categories", 0))
-                                        )
-                                )
-                        )
-                )
-        ).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+        this.aggregate(collection, this.firstCategoryPipeline).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+
+        this.logger.exit();
+    }
+
+    /* Run the pipeline through the cache when there is one */
+
+    private List<Document> aggregate(final MongoCollection<Document> collection, final List<Bson> pipeline) {
+        if (this.cache != null)
+            return this.cache.aggregate(collection, pipeline);
+
+        return collection.aggregate(pipeline).into(new ArrayList<>());
+    }
+
+    private void openCache() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        this.cache = new AggregationCache(this.cacheMaxBytes, this.cacheTimeToLiveMillis);
+
+        if (this.cacheInvalidate && !this.cache.watch(collection))
+            this.logger.warn("Change streams are unavailable; cached aggregations only expire");
+
+        this.logger.exit();
+    }
+
+    /*
+     * Send both pipelines repeatedly, the way a dashboard
+     * does, and report what the cache saved.
+     */
+
+    private void repeat() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var startNanos = System.nanoTime();
+
+        for (int i = 0; i < this.cacheRepeats; i++) {
+            this.aggregate(collection, this.bakeryPipeline);
+            this.aggregate(collection, this.firstCategoryPipeline);
+        }
+
+        if (this.logger.isInfoEnabled())
+            this.logger.info("{} repeated aggregation(s) took {} ms: {}",
+                    2 * this.cacheRepeats,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    this.cache);
 
         this.logger.exit();
     }
 
+    /*
+     * Keep the stars of each category in a summary collection:
+     * build it, add two restaurants and refresh it, which
+     * regroups only the categories of the new restaurants. The
+     * restaurants are stamped with the server's time after
+     * they are written, standing in for writers that set it.
+     */
+
+    private void materializedView() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var view = new MaterializedView("starsByCategory",
+                collection,
+                database.getCollection(this.viewCollectionName),
+                database.getCollection(this.viewMarksCollectionName),
+                "categories",
+                true,
+                List.of(Accumulators.sum("restaurants", 1),
+                        Accumulators.avg("averageStars", "$stars"),
+                        Accumulators.max("maxStars", "$stars")),
+                this.viewMarkField,
+                this.viewLagMillis);
+
+        try {
+            collection.createIndex(Indexes.ascending("categories"));
+            collection.createIndex(Indexes.ascending(this.viewMarkField));
+
+            this.stampUnmarked(collection);
+            this.logger.info("Materialized view built: {}", view.refresh());
+
+            RecordCodecs.getCollection(database, this.collectionName, Restaurant.class).insertMany(List.of(
+                    new Restaurant("Sun Bakery Express", new Restaurant.Contact("386-555-0190", "SunBakeryExpress@example.org", -74.0051234, 40.7451234), 5, List.of("Bakery", "Coffee")),
+                    new Restaurant("Green Noodle House", new Restaurant.Contact("840-555-0177", "GreenNoodleHouse@example.com", -74.1212345, 40.6121234), 3, List.of("Noodles", "Chinese"))
+            ));
+
+            this.stampUnmarked(collection);
+            this.logger.info("Materialized view refreshed: {}", view.refresh());
+
+            view.read(Filters.in("_id", "Bakery", "Coffee", "Chinese", "Noodles")).forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        } finally {
+            view.drop();
+        }
+
+        this.logger.exit();
+    }
+
+    /* Set the mark field of the documents without one to the server's time; an _id mark needs nothing */
+
+    private void stampUnmarked(final MongoCollection<Document> collection) {
+        if (!"_id".equals(this.viewMarkField))
+            collection.updateMany(Filters.exists(this.viewMarkField, false), Updates.currentDate(this.viewMarkField));
+    }
+
+    /*
+     * Follow the bakery star counts live: seed the histogram,
+     * change three bakeries and wait for the events, then
+     * close it and start another from its checkpoint.
+     */
+
+    private void liveHistogram() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var checkpoints = database.getCollection(this.histogramCheckpointsCollectionName);
+
+        try (final var histogram = this.newHistogram(collection, checkpoints)) {
+            if (!histogram.start())
+                this.logger.warn("Change streams are unavailable; the star counts will not follow changes");
+
+            this.logger.info("Seeded bakery stars: {}", Arrays.toString(histogram.counts("Bakery")));
+
+            RecordCodecs.getCollection(database, this.collectionName, Restaurant.class).insertOne(
+                    new Restaurant("Hot Bakery Corner", new Restaurant.Contact("264-555-0172", "HotBakeryCorner@example.net", -73.9647321, 40.7617654), 3, List.of("Bakery", "Dessert")));
+            collection.updateOne(Filters.eq("name", "456 Cookies Shop"), Updates.set("stars", 5));
+            collection.deleteOne(Filters.eq("name", "Hot Bakery Cafe"));
+
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+            while (histogram.getEvents() < 3 && System.nanoTime() < deadline)
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+
+            final var startNanos = System.nanoTime();
+
+            long total = 0;
+
+            for (int i = 0; i < 1_000_000; i++)
+                total += histogram.count("Bakery", i % StarHistogram.RATINGS);
+
+            final var nanosPerRead = (System.nanoTime() - startNanos) / 1_000_000.0;
+
+            if (this.logger.isInfoEnabled()) {
+                this.logger.info("Live bakery stars: {} ({})", Arrays.toString(histogram.counts("Bakery")), histogram);
+                this.logger.info("{} point read(s) summing to {} took {} ns each", 1_000_000, total, String.format("%.1f", nanosPerRead));
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        try (final var restarted = this.newHistogram(collection, checkpoints)) {
+            restarted.start();
+
+            this.logger.info("Restarted bakery stars: {}", Arrays.toString(restarted.counts("Bakery")));
+            restarted.dropCheckpoint();
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit();
+    }
+
+    private StarHistogram newHistogram(final MongoCollection<Document> collection, final MongoCollection<Document> checkpoints) {
+        return new StarHistogram(this.mongoClient,
+                collection,
+                checkpoints,
+                "stars",
+                this.histogramCapacity,
+                this.histogramCheckpointEvery);
+    }
+
+    /*
+     * Find the nearest restaurants in a category to Times
+     * Square with each kind of geo query, then time the
+     * indexed and brute-force searches over generated points.
+     */
+
+    private void geo() {
+        this.logger.entry();
+
+        final var longitude = -73.9855;
+        final var latitude = 40.7580;
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var restaurants = new GeoRestaurants(database.getCollection(this.collectionName));
+
+        try {
+            restaurants.ensureIndex();
+
+            restaurants.near(longitude, latitude, this.geoCategory, this.geoNearest, this.geoMaxMeters)
+                    .forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+            restaurants.geoNear(longitude, latitude, this.geoCategory, this.geoNearest, this.geoMaxMeters)
+                    .forEach(doc -> Helpers.printOneDocument(doc, this.logger));
+
+            this.logger.info("{} {} restaurant(s) within {} m",
+                    restaurants.within(longitude, latitude, this.geoCategory, this.geoMaxMeters).size(),
+                    this.geoCategory,
+                    this.geoMaxMeters);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        if (this.geoGenerated > 0)
+            this.geoGenerated(longitude, latitude);
+
+        this.logger.exit();
+    }
+
+    private void geoGenerated(final double longitude, final double latitude) {
+        this.logger.entry(longitude, latitude);
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName + "Geo");
+        final var generated = new GeoRestaurants(collection);
+
+        try {
+            collection.drop();
+            generated.generate(this.geoGenerated, 42L, 10_000);
+            generated.ensureIndex();
+
+            var startNanos = System.nanoTime();
+
+            final var indexed = generated.geoNear(longitude, latitude, this.geoCategory, this.geoNearest, this.geoMaxMeters);
+            final var indexedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+
+            startNanos = System.nanoTime();
+
+            final var scanned = generated.bruteForce(longitude, latitude, this.geoCategory, this.geoNearest, this.geoMaxMeters);
+            final var scannedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+
+            if (this.logger.isInfoEnabled())
+                this.logger.info("Nearest {} of {} generated: $geoNear {} us, brute force {} us; same restaurants: {}",
+                        this.geoNearest,
+                        this.geoGenerated,
+                        indexedMicros,
+                        scannedMicros,
+                        indexed.stream().map(doc -> doc.get("_id")).toList().equals(scanned.stream().map(doc -> doc.get("_id")).toList()));
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        } finally {
+            collection.drop();
+        }
+
+        this.logger.exit();
+    }
+
+    /**
+     * The pipelines run by the operations.
+     *
+     * @return  java.util.List&lt;net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     */
+    List<PlanShape> planShapes() {
+        return List.of(
+                PlanShape.aggregate("basic", this.bakeryPipeline),
+                PlanShape.aggregate("expression", this.firstCategoryPipeline)
+        );
+    }
+
     private void dropCollection() {
         this.logger.entry();
 
@@ -0,0 +1,412 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)AggregationCache.java 0.31.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.31.0
+ * @since     0.31.0
+ */
+
+import com.mongodb.MongoNamespace;
+
+import com.mongodb.client.MongoCollection;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DocumentCodec;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * A read-through cache of aggregation results keyed by
+ * namespace and a fingerprint of the pipeline. The
+ * fingerprint is the SHA-256 of the pipeline rendered to
+ * BSON, so pipelines built with the Aggregates helpers and
+ * the same pipelines parsed from JSON share an entry. The
+ * top-level conditions of a $match are put in name order
+ * first, and a top-level $and over distinct fields is
+ * flattened, since neither changes the result. No other
+ * field is reordered because order is significant in a
+ * $sort, a compound _id or an embedded document match.
+ *
+ * <p>Entries expire after a time to live, and the cache is
+ * held to a budget of result bytes by evicting the least
+ * recently used entries. As in DocumentCache, watching a
+ * collection drops every entry for its namespace when a
+ * write is seen. Each entry remembers how long its pipeline
+ * took, and every hit adds that to the server time saved.
+ *
+ * <p>A pipeline with an $out or $merge stage writes as well
+ * as reads, so it is never cached: it runs on every call and
+ * is counted as a bypass.
+ */
+final class AggregationCache implements AutoCloseable {
+    private static final List<String> WRITE_STAGES = List.of("$out", "$merge");
+
+    record Key(MongoNamespace namespace, String fingerprint) {}
+
+    private record Entry(List<Document> results, long bytes, long loadNanos, long expiresAtNanos) {}
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final long maximumBytes;
+    private final long timeToLiveNanos;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<MongoNamespace, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<MongoNamespace, CollectionWatcher> watchers = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    private long bytes;
+
+    AggregationCache(final long maximumBytes, final long timeToLiveMillis) {
+        super();
+
+        this.maximumBytes = maximumBytes;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    }
+
+    /**
+     * Return the results of the pipeline, running it on the
+     * collection on a miss or an expired entry. A pipeline
+     * that writes runs every time. The returned list is shared
+     * with the cache and must not be changed.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   pipeline    java.util.List&lt;? extends org.bson.conversions.Bson&gt;
+     * @return              java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> aggregate(final MongoCollection<Document> collection, final List<? extends Bson> pipeline) {
+        if (writes(pipeline)) {
+            this.bypasses.increment();
+
+            return List.copyOf(collection.aggregate(pipeline).into(new ArrayList<>()));
+        }
+
+        final var namespace = collection.getNamespace();
+        final var key = new Key(namespace, fingerprint(pipeline));
+        final var now = System.nanoTime();
+
+        synchronized (this.entries) {
+            final var entry = this.entries.get(key);
+
+            if (entry != null) {
+                if (now - entry.expiresAtNanos() < 0) {
+                    this.hits.increment();
+                    this.savedNanos.add(entry.loadNanos());
+
+                    return entry.results();
+                }
+
+                this.remove(key);
+                this.expirations.increment();
+            }
+        }
+
+        this.misses.increment();
+
+        /*
+         * Run outside the lock. If the namespace is invalidated
+         * while running, the possibly stale results are not cached.
+         */
+
+        final var generation = this.generation(namespace);
+        final var before = generation.get();
+        final var startNanos = System.nanoTime();
+        final var results = List.copyOf(collection.aggregate(pipeline).into(new ArrayList<>()));
+        final var loadNanos = System.nanoTime() - startNanos;
+        final var size = sizeOf(results);
+
+        synchronized (this.entries) {
+            if (generation.get() == before && size <= this.maximumBytes) {
+                this.remove(key);
+                this.entries.put(key, new Entry(results, size, loadNanos, System.nanoTime() + this.timeToLiveNanos));
+                this.bytes += size;
+
+                final var iterator = this.entries.entrySet().iterator();
+
+                while (this.bytes > this.maximumBytes && iterator.hasNext()) {
+                    final var eldest = iterator.next();
+
+                    if (eldest.getKey().equals(key))
+                        break;
+
+                    iterator.remove();
+
+                    this.bytes -= eldest.getValue().bytes();
+                    this.evictions.increment();
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Invalidate the entries of the collection whenever it
+     * changes. Returns false if the change stream could not
+     * be opened, in which case only the time to live applies.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @return              boolean
+     */
+    boolean watch(final MongoCollection<Document> collection) {
+        this.logger.entry(collection);
+
+        final var namespace = collection.getNamespace();
+
+        /*
+         * Wait for the stream outside the map: awaitStarted can
+         * block, and inside compute it would hold the bin lock.
+         */
+
+        var watcher = this.watchers.get(namespace);
+
+        if (watcher != null && !watcher.awaitStarted()) {
+            final var fresh = new CollectionWatcher(collection, event -> this.invalidate(namespace));
+
+            if (this.watchers.replace(namespace, watcher, fresh)) {
+                watcher.close();    // Invalidated by a drop or a rename; watch afresh
+                watcher = fresh;
+            } else {
+                fresh.close();      // Another caller replaced it first
+                watcher = null;
+            }
+        }
+
+        if (watcher == null)
+            watcher = this.watchers.computeIfAbsent(namespace, ns -> new CollectionWatcher(collection, event -> this.invalidate(ns)));
+
+        final var watching = watcher.awaitStarted();
+
+        this.logger.exit(watching);
+
+        return watching;
+    }
+
+    void invalidate(final MongoNamespace namespace) {
+        this.generation(namespace).incrementAndGet();
+
+        synchronized (this.entries) {
+            final List<Key> keys = new ArrayList<>();
+
+            for (final var key : this.entries.keySet())
+                if (key.namespace().equals(namespace))
+                    keys.add(key);
+
+            keys.forEach(this::remove);
+
+            this.invalidations.add(keys.size());
+        }
+    }
+
+    /**
+     * The fingerprint of a pipeline: the hexadecimal SHA-256
+     * of its stages rendered to BSON, with the top-level
+     * conditions of each $match normalized.
+     *
+     * @param   pipeline    java.util.List&lt;? extends org.bson.conversions.Bson&gt;
+     * @return              java.lang.String
+     */
+    static String fingerprint(final List<? extends Bson> pipeline) {
+        final var stages = new BsonArray();
+
+        for (final var stage : pipeline) {
+            final var document = stage.toBsonDocument();
+            final var match = document.get("$match");
+
+            if (document.size() == 1 && match != null && match.isDocument())
+                stages.add(new BsonDocument("$match", normalizeMatch(match.asDocument())));
+            else
+                stages.add(document);
+        }
+
+        final var raw = new RawBsonDocument(new BsonDocument("pipeline", stages), new BsonDocumentCodec());
+
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+
+            digest.update(raw.getByteBuffer().asNIO());
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not available", nsae);
+        }
+    }
+
+    /* Skipping an $out or $merge on a hit would skip its write */
+
+    private static boolean writes(final List<? extends Bson> pipeline) {
+        for (final var stage : pipeline) {
+            final var document = stage.toBsonDocument();
+
+            for (final var name : WRITE_STAGES)
+                if (document.containsKey(name))
+                    return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * Put the top-level conditions of a $match in name order,
+     * after flattening a top-level $and whose conditions are on
+     * distinct fields, as Filters.and renders them.
+     */
+
+    private static BsonDocument normalizeMatch(final BsonDocument match) {
+        final var conditions = new TreeMap<String, BsonValue>();
+        final var and = match.get("$and");
+
+        if (match.size() == 1 && and != null && and.isArray()) {
+            for (final var condition : and.asArray()) {
+                if (!condition.isDocument())
+                    return match;
+
+                for (final var field : condition.asDocument().entrySet())
+                    if (conditions.put(field.getKey(), field.getValue()) != null)
+                        return match;
+            }
+        } else {
+            conditions.putAll(match);
+        }
+
+        final var normalized = new BsonDocument();
+
+        conditions.forEach(normalized::append);
+
+        return normalized;
+    }
+
+    /* The encoded size of the results, which is what the budget is kept in */
+
+    private static long sizeOf(final List<Document> results) {
+        final var codec = new DocumentCodec();
+
+        long size = 0;
+
+        for (final var result : results)
+            size += new RawBsonDocument(result, codec).getByteBuffer().remaining();
+
+        return size;
+    }
+
+    /* Call with the entries locked */
+
+    private void remove(final Key key) {
+        final var entry = this.entries.remove(key);
+
+        if (entry != null)
+            this.bytes -= entry.bytes();
+    }
+
+    private AtomicLong generation(final MongoNamespace namespace) {
+        return this.generations.computeIfAbsent(namespace, ns -> new AtomicLong());
+    }
+
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    long getMisses() {
+        return this.misses.sum();
+    }
+
+    long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    long getExpirations() {
+        return this.expirations.sum();
+    }
+
+    long getInvalidations() {
+        return this.invalidations.sum();
+    }
+
+    long getBypasses() {
+        return this.bypasses.sum();
+    }
+
+    double getHitRate() {
+        final var lookups = this.getHits() + this.getMisses();
+
+        return lookups == 0 ? 0.0 : (double) this.getHits() / lookups;
+    }
+
+    /**
+     * The time the cached pipelines took when they were run,
+     * summed over every hit.
+     *
+     * @return  long    Milliseconds
+     */
+    long getServerMillisSaved() {
+        return TimeUnit.NANOSECONDS.toMillis(this.savedNanos.sum());
+    }
+
+    int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    long bytes() {
+        synchronized (this.entries) {
+            return this.bytes;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.watchers.values().forEach(CollectionWatcher::close);
+        this.watchers.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d bytes=%d hits=%d misses=%d hitRate=%.2f%% savedMillis=%d evictions=%d expirations=%d invalidations=%d bypasses=%d",
+                this.size(),
+                this.bytes(),
+                this.getHits(),
+                this.getMisses(),
+                100.0 * this.getHitRate(),
+                this.getServerMillisSaved(),
+                this.getEvictions(),
+                this.getExpirations(),
+                this.getInvalidations(),
+                this.getBypasses());
+    }
+}
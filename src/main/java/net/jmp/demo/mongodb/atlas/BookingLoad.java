@@ -0,0 +1,333 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BookingLoad.java  0.28.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.28.0
+ * @since     0.28.0
+ */
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Recorder;
+
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Books rooms from many clients at once to compare booking
+ * strategies under contention. Each client is a virtual
+ * thread that repeatedly asks for a random room, holds it
+ * briefly when it gets it and then checks out. Every booking
+ * increments a holders count on the room and every checkout
+ * decrements it, so a booking that leaves more than one
+ * holder is a double booking.
+ *
+ * <p>The racy strategy reads a free room and then writes it
+ * blindly, as Compound.raceCondition does; findOneAndUpdate
+ * matches and reserves the free room in one operation, as
+ * Compound.noRaceCondition does; the optimistic strategy
+ * reads the room's version and writes only if it is still
+ * current, retrying with jittered backoff when it is not.
+ */
+final class BookingLoad {
+    enum Strategy {
+        RACY,
+        FIND_AND_MODIFY,
+        OPTIMISTIC
+    }
+
+    /**
+     * The results of one run.
+     *
+     * @param   strategy        net.jmp.demo.mongodb.atlas.BookingLoad.Strategy
+     * @param   bookings        long
+     * @param   unavailable     long    Requests for a room that was already reserved
+     * @param   retries         long    Optimistic writes repeated after a version conflict
+     * @param   abandoned       long    Optimistic requests that ran out of retries
+     * @param   doubleBookings  long
+     * @param   bookingsPerSec  double
+     * @param   p50Micros       long    Request latency, including retries
+     * @param   p99Micros       long
+     * @param   maxMicros       long
+     */
+    record Report(Strategy strategy,
+                  long bookings,
+                  long unavailable,
+                  long retries,
+                  long abandoned,
+                  long doubleBookings,
+                  double bookingsPerSec,
+                  long p50Micros,
+                  long p99Micros,
+                  long maxMicros) {}
+
+    /* How one request ended */
+
+    private enum Outcome {
+        BOOKED,
+        UNAVAILABLE,
+        ABANDONED
+    }
+
+    private static final String RESERVED = "reserved";
+    private static final String GUEST = "guest";
+    private static final String VERSION = "version";
+    private static final String HOLDERS = "holders";
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final int rooms;
+    private final int clients;
+    private final int requestsPerClient;
+    private final long holdMillis;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    BookingLoad(final MongoCollection<Document> collection,
+                final int rooms,
+                final int clients,
+                final int requestsPerClient,
+                final long holdMillis,
+                final int maxRetries,
+                final long initialBackoffMillis,
+                final long maxBackoffMillis) {
+        super();
+
+        this.collection = collection;
+        this.rooms = rooms;
+        this.clients = clients;
+        this.requestsPerClient = requestsPerClient;
+        this.holdMillis = holdMillis;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Reset the rooms and run every client with the strategy.
+     *
+     * @param   strategy    net.jmp.demo.mongodb.atlas.BookingLoad.Strategy
+     * @return              net.jmp.demo.mongodb.atlas.BookingLoad.Report
+     */
+    Report run(final Strategy strategy) {
+        this.logger.entry(strategy);
+
+        this.resetRooms();
+
+        final var bookings = new LongAdder();
+        final var unavailable = new LongAdder();
+        final var retries = new LongAdder();
+        final var abandoned = new LongAdder();
+        final var doubleBookings = new LongAdder();
+        final var latency = new Recorder(3);
+        final var startNanos = System.nanoTime();
+
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < this.clients; c++) {
+                final var guest = "guest-" + c;
+
+                executor.execute(() -> {
+                    final var random = ThreadLocalRandom.current();
+
+                    for (int i = 0; i < this.requestsPerClient; i++) {
+                        final var room = random.nextInt(this.rooms);
+                        final var requestNanos = System.nanoTime();
+
+                        try {
+                            final var outcome = switch (strategy) {
+                                case RACY -> this.bookRacy(room, guest, doubleBookings);
+                                case FIND_AND_MODIFY -> this.bookWithFindAndModify(room, guest, doubleBookings);
+                                case OPTIMISTIC -> this.bookOptimistically(room, guest, doubleBookings, retries);
+                            };
+
+                            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestNanos));
+
+                            switch (outcome) {
+                                case BOOKED -> {
+                                    bookings.increment();
+
+                                    try {
+                                        this.hold();
+                                    } finally {
+                                        this.checkOut(room, strategy);     // A room left reserved would turn later requests away
+                                    }
+                                }
+                                case UNAVAILABLE -> unavailable.increment();
+                                case ABANDONED -> abandoned.increment();
+                            }
+                        } catch (final MongoException me) {
+                            this.logger.catching(me);
+                        }
+                    }
+                });
+            }
+        }
+
+        final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+        final var histogram = latency.getIntervalHistogram();
+
+        final var report = new Report(strategy,
+                bookings.sum(),
+                unavailable.sum(),
+                retries.sum(),
+                abandoned.sum(),
+                doubleBookings.sum(),
+                bookings.sum() / seconds,
+                histogram.getValueAtPercentile(50.0),
+                histogram.getValueAtPercentile(99.0),
+                histogram.getMaxValue());
+
+        this.logger.exit(report);
+
+        return report;
+    }
+
+    /**
+     * Remove the rooms.
+     */
+    void dropRooms() {
+        this.collection.drop();
+    }
+
+    private void resetRooms() {
+        this.collection.drop();
+
+        final List<Document> documents = new ArrayList<>(this.rooms);
+
+        for (int i = 0; i < this.rooms; i++)
+            documents.add(new Document("_id", i)
+                    .append("room", "Room " + i)
+                    .append(RESERVED, false)
+                    .append(GUEST, null)
+                    .append(VERSION, 0L)
+                    .append(HOLDERS, 0));
+
+        this.collection.insertMany(documents);
+    }
+
+    private Outcome bookRacy(final int room, final String guest, final LongAdder doubleBookings) {
+        final var free = this.collection.find(Filters.and(Filters.eq("_id", room), Filters.eq(RESERVED, false))).first();
+
+        if (free == null)
+            return Outcome.UNAVAILABLE;
+
+        final var booked = this.collection.findOneAndUpdate(Filters.eq("_id", room),
+                this.bookingUpdate(guest),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+
+        this.checkHolders(booked, doubleBookings);
+
+        return Outcome.BOOKED;
+    }
+
+    private Outcome bookWithFindAndModify(final int room, final String guest, final LongAdder doubleBookings) {
+        final var booked = this.collection.findOneAndUpdate(Filters.and(Filters.eq("_id", room), Filters.eq(RESERVED, false)),
+                this.bookingUpdate(guest),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+
+        if (booked == null)
+            return Outcome.UNAVAILABLE;
+
+        this.checkHolders(booked, doubleBookings);
+
+        return Outcome.BOOKED;
+    }
+
+    private Outcome bookOptimistically(final int room, final String guest, final LongAdder doubleBookings, final LongAdder retries) {
+        for (int attempt = 0; attempt <= this.maxRetries; attempt++) {
+            if (attempt > 0) {
+                retries.increment();
+
+                this.backoff(attempt);
+            }
+
+            final var current = this.collection.find(Filters.eq("_id", room)).first();
+
+            if (current == null || current.getBoolean(RESERVED))
+                return Outcome.UNAVAILABLE;
+
+            final var booked = this.collection.findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", room), Filters.eq(VERSION, current.getLong(VERSION))),
+                    this.bookingUpdate(guest),
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+
+            if (booked != null) {
+                this.checkHolders(booked, doubleBookings);
+
+                return Outcome.BOOKED;
+            }
+        }
+
+        return Outcome.ABANDONED;
+    }
+
+    private Bson bookingUpdate(final String guest) {
+        return Updates.combine(Updates.set(RESERVED, true), Updates.set(GUEST, guest), Updates.inc(VERSION, 1L), Updates.inc(HOLDERS, 1));
+    }
+
+    private void checkHolders(final Document booked, final LongAdder doubleBookings) {
+        if (booked != null && booked.getInteger(HOLDERS) > 1)
+            doubleBookings.increment();
+    }
+
+    private void checkOut(final int room, final Strategy strategy) {
+        final var update = Updates.combine(Updates.set(RESERVED, false), Updates.set(GUEST, null), Updates.inc(HOLDERS, -1));
+
+        this.collection.updateOne(Filters.eq("_id", room),
+                strategy == Strategy.OPTIMISTIC ? Updates.combine(update, Updates.inc(VERSION, 1L)) : update);
+    }
+
+    private void hold() {
+        if (this.holdMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(this.holdMillis);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+
+                throw new MongoInterruptedException("Interrupted holding a room", ie);
+            }
+        }
+    }
+
+    /* Exponential backoff with full jitter, bounded by the maximum */
+
+    private void backoff(final int attempt) {
+        final var ceiling = Math.min(this.maxBackoffMillis, this.initialBackoffMillis << Math.min(attempt - 1, 20));
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+
+            throw new MongoInterruptedException("Interrupted backing off a booking retry", ie);
+        }
+    }
+}
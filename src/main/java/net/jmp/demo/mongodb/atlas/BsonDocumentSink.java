@@ -0,0 +1,54 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BsonDocumentSink.java 0.15.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.15.0
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.bson.RawBsonDocument;
+
+/**
+ * Copies the bytes of each document unchanged to an
+ * output stream, producing a file in the format read
+ * by mongorestore and by BulkImport. Nothing is decoded.
+ */
+final class BsonDocumentSink implements DocumentSink {
+    private final OutputStream outputStream;
+    private final WritableByteChannel channel;
+
+    BsonDocumentSink(final OutputStream outputStream) {
+        super();
+
+        this.outputStream = outputStream;
+        this.channel = Channels.newChannel(outputStream);
+    }
+
+    @Override
+    public void write(final RawBsonDocument document) throws IOException {
+        final var buffer = document.getByteBuffer().asNIO();
+
+        if (buffer.hasArray()) {    // A view of the document's own bytes, written straight from them
+            this.outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            while (buffer.hasRemaining())
+                this.channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.outputStream.close();
+    }
+}
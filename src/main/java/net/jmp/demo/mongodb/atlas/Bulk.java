@@ -1,25 +1,31 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Bulk.java 0.30.0  10/17/2026
+ * (#)Bulk.java 0.23.0  10/17/2026
+ * (#)Bulk.java 0.22.0  10/17/2026
+ * (#)Bulk.java 0.21.0  10/17/2026
  * (#)Bulk.java 0.8.0   12/06/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.8.0
+ * @version   0.30.0
  * @since     0.8.0
  */
 
 import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
 
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 
 import com.mongodb.client.model.*;
 
 import java.util.*;
 
-import org.bson.Document;
+import java.util.function.Consumer;
 
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +36,15 @@ final class Bulk {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final BulkRetry retry;
+    private final int executorOperations;
+    private final boolean executorOrdered;
+    private final int executorBatchesInFlight;
+    private final int executorInitialBatchSize;
+    private final int executorMaxBatchSize;
+    private final long executorTargetLatencyMillis;
+    private final int transactionOperations;
+    private final TransactionRunner transactions;
 
     Bulk(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -38,6 +53,15 @@ final class Bulk {
 
         this.dbName = properties.getProperty("mongodb.bulk.db", "training");
         this.collectionName = properties.getProperty("mongodb.bulk.collection", "colors");
+        this.retry = BulkRetry.fromProperties(properties);
+        this.executorOperations = Integer.parseInt(properties.getProperty("mongodb.bulk.executor.operations", "0"));
+        this.executorOrdered = Boolean.parseBoolean(properties.getProperty("mongodb.bulk.executor.ordered", "false"));
+        this.executorBatchesInFlight = Integer.parseInt(properties.getProperty("mongodb.bulk.executor.batchesInFlight", "4"));
+        this.executorInitialBatchSize = Integer.parseInt(properties.getProperty("mongodb.bulk.executor.initialBatchSize", "500"));
+        this.executorMaxBatchSize = Integer.parseInt(properties.getProperty("mongodb.bulk.executor.maxBatchSize", "10000"));
+        this.executorTargetLatencyMillis = Long.parseLong(properties.getProperty("mongodb.bulk.executor.targetLatencyMillis", "200"));
+        this.transactionOperations = Integer.parseInt(properties.getProperty("mongodb.transactions.operations", "0"));
+        this.transactions = TransactionRunner.fromProperties(properties, mongoClient);
     }
 
     void run() {
@@ -65,6 +89,12 @@ final class Bulk {
                 this.collectionName,
                 this.logger);
 
+        if (this.executorOperations > 0)
+            this.pipelined();
+
+        if (this.transactionOperations > 0)
+            this.transactional();
+
         this.delete();
 
         this.logger.info("Ending bulk operations...");
@@ -75,15 +105,15 @@ final class Bulk {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
 
-        final var karenDoc = new InsertOneModel<>(new Document("name", "Karen Sandoval").append("age", 31));
-        final var williamDoc = new InsertOneModel<>(new Document("name", "William Chin").append("age", 54));
-        final var shaylaDoc = new InsertOneModel<>(new Document("name", "Shayla Ray").append("age", 20));
-        final var juneDoc = new InsertOneModel<>(new Document("name", "June Carrie").append("age", 17));
-        final var kevinDoc = new InsertOneModel<>(new Document("name", "Kevin Moss").append("age", 22));
+        final var karenDoc = new InsertOneModel<>(new Person("Karen Sandoval", 31));
+        final var williamDoc = new InsertOneModel<>(new Person("William Chin", 54));
+        final var shaylaDoc = new InsertOneModel<>(new Person("Shayla Ray", 20));
+        final var juneDoc = new InsertOneModel<>(new Person("June Carrie", 17));
+        final var kevinDoc = new InsertOneModel<>(new Person("Kevin Moss", 22));
 
-        final List<WriteModel<Document>> bulkDocuments = new ArrayList<>();
+        final List<WriteModel<Person>> bulkDocuments = new ArrayList<>();
 
         bulkDocuments.add(karenDoc);
         bulkDocuments.add(williamDoc);
@@ -94,14 +124,13 @@ final class Bulk {
         final var options = new BulkWriteOptions().ordered(true);
 
         try {
-            final var result = collection.bulkWrite(bulkDocuments, options);
+            final var outcome = this.retry.bulkWrite(collection, bulkDocuments, options);
 
-            this.logger.info("Documents inserted: {}", result.getInsertedCount());
-        } catch (final MongoBulkWriteException mbwe) {
-            this.logger.catching(mbwe);
+            this.logger.info("Documents inserted: {}", outcome.inserted());
 
-            mbwe.getWriteResult().getInserts()
-                    .forEach(doc -> this.logger.info("Inserted document: {}", doc.getId().asObjectId().getValue()));
+            Helpers.printRetryOutcome(outcome, this.logger);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
         }
 
         this.logger.exit();
@@ -111,15 +140,13 @@ final class Bulk {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
         final var filter = Filters.eq("name", "William Chin");
 
         final var marinaDoc = new ReplaceOneModel<>(filter,
-                new Document("name", "Marina Squerciati")
-                        .append("age", 39)
-                        .append("location", "New York, NY"));
+                new Person(null, "Marina Squerciati", 39, "New York, NY"));
 
-        final List<WriteModel<Document>> bulkDocuments = List.of(marinaDoc);
+        final List<WriteModel<Person>> bulkDocuments = List.of(marinaDoc);
 
         try {
             final var result = collection.bulkWrite(bulkDocuments);
@@ -139,13 +166,13 @@ final class Bulk {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
         final var filter = Filters.eq("name", "June Carrie");
         final var update = Updates.set("age", 19);
 
-        final UpdateOneModel<Document> juneDoc = new UpdateOneModel<>(filter, update);
+        final UpdateOneModel<Person> juneDoc = new UpdateOneModel<>(filter, update);
 
-        final List<UpdateOneModel<Document>> bulkDocuments = List.of(juneDoc);
+        final List<UpdateOneModel<Person>> bulkDocuments = List.of(juneDoc);
 
         try {
             final var result = collection.bulkWrite(bulkDocuments);
@@ -161,16 +188,118 @@ final class Bulk {
         this.logger.exit();
     }
 
+    /*
+     * Stream a mixed workload through the executor: every
+     * operation inserts a person, every fourth also updates
+     * an earlier one and every tenth deletes one.
+     */
+
+    private void pipelined() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
+        final var startNanos = System.nanoTime();
+
+        final BulkWriteExecutor.Result result;
+
+        try (final var executor = new BulkWriteExecutor<>(database,
+                collection,
+                this.executorOrdered,
+                this.executorBatchesInFlight,
+                this.executorInitialBatchSize,
+                this.executorMaxBatchSize,
+                this.executorTargetLatencyMillis,
+                this.retry)) {
+            for (int i = 0; i < this.executorOperations; i++) {
+                executor.submit(new InsertOneModel<>(new Person("Bulk Person " + i, 18 + i % 60)));
+
+                if (i % 4 == 3)
+                    executor.submit(new UpdateOneModel<>(Filters.eq("name", "Bulk Person " + (i - 2)), Updates.inc("age", 1)));
+
+                if (i % 10 == 9)
+                    executor.submit(new DeleteOneModel<>(Filters.eq("name", "Bulk Person " + (i - 5))));
+            }
+
+            executor.flush();
+
+            result = executor.getResult();
+        }
+
+        final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+
+        if (this.logger.isInfoEnabled()) {
+            this.logger.info("Pipelined bulk writes: {}", result);
+            this.logger.info("{} operation(s) in {} s ({} ops/sec)",
+                    this.executorOperations,
+                    String.format("%.2f", seconds),
+                    String.format("%.0f", this.executorOperations / seconds));
+        }
+
+        this.logger.exit();
+    }
+
+    /*
+     * Run small writes as transactions, a group per commit:
+     * every operation inserts a person and adds a year to
+     * Karen, so her age must end up grown by exactly the
+     * number of people committed.
+     */
+
+    private void transactional() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
+        final var karen = Filters.eq("name", "Karen Sandoval");
+        final List<Consumer<ClientSession>> operations = new ArrayList<>(this.transactionOperations);
+
+        for (int i = 0; i < this.transactionOperations; i++) {
+            final var person = new Person("Transaction Person " + i, 18 + i % 60);
+
+            operations.add(session -> {
+                collection.insertOne(session, person);
+                collection.updateOne(session, karen, Updates.inc("age", 1));
+            });
+        }
+
+        try {
+            final var before = collection.find(karen).first();
+            final var startNanos = System.nanoTime();
+
+            this.transactions.run(operations);
+
+            final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+            final var after = collection.find(karen).first();
+            final var committed = collection.countDocuments(Filters.regex("name", "^Transaction Person "));
+
+            if (this.logger.isInfoEnabled()) {
+                this.logger.info("Transactional writes: {}", this.transactions);
+                this.logger.info("{} operation(s) in {} s ({} ops/sec)",
+                        this.transactionOperations,
+                        String.format("%.2f", seconds),
+                        String.format("%.0f", this.transactionOperations / seconds));
+            }
+
+            if (before != null && after != null && after.age() - before.age() != committed)
+                this.logger.warn("Karen aged {} year(s) but {} person(s) were committed", after.age() - before.age(), committed);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit();
+    }
+
     private void delete() {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Person.class);
         final var filter = Filters.empty();
 
-        final DeleteManyModel<Document> deleteDocs = new DeleteManyModel<>(filter);
+        final DeleteManyModel<Person> deleteDocs = new DeleteManyModel<>(filter);
 
-        final List<DeleteManyModel<Document>> bulkDocuments = List.of(deleteDocs);
+        final List<DeleteManyModel<Person>> bulkDocuments = List.of(deleteDocs);
 
         final var options = new BulkWriteOptions().ordered(false);
 
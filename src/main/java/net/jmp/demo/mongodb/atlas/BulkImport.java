@@ -0,0 +1,324 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BulkImport.java   0.12.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.12.0
+ * @since     0.12.0
+ */
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.InsertManyOptions;
+
+import java.io.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import java.util.concurrent.*;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.RawBsonDocument;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Streams a JSONL or raw BSON file into the insert collection.
+ * A single reader cuts the file into chunks of raw records,
+ * a pool of workers parses each chunk into a batch of raw
+ * BSON documents, and each batch is written with an unordered
+ * insertMany. The chunk queue and the number of batches in
+ * flight are both bounded, so heap use does not depend on
+ * the size of the file.
+ */
+final class BulkImport {
+    private static final int MIN_DOCUMENT_LENGTH = 5;                   // The length and the terminating null
+    private static final int MAX_DOCUMENT_LENGTH = 16 * 1024 * 1024;    // The server's BSON document limit
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoClient mongoClient;
+    private final String dbName;
+    private final String collectionName;
+    private final String fileName;
+    private final Format format;
+    private final int batchSize;
+    private final int parsers;
+    private final int batchesInFlight;
+    private final LongAdder documentsInserted = new LongAdder();
+    private final LongAdder documentsFailed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+
+    private enum Format {
+        JSONL,
+        BSON
+    }
+
+    /* A chunk of unparsed records; an empty chunk marks the end of the file */
+
+    private record Chunk(List<Object> records) {
+        private static final Chunk END = new Chunk(List.of());
+    }
+
+    BulkImport(final Properties properties, final MongoClient mongoClient) {
+        super();
+
+        this.mongoClient = mongoClient;
+
+        this.dbName = properties.getProperty("mongodb.insert.db", "training");
+        this.collectionName = properties.getProperty("mongodb.insert.collection", "colors");
+        this.fileName = properties.getProperty("mongodb.import.file");
+        this.batchSize = Integer.parseInt(properties.getProperty("mongodb.import.batchSize", "1000"));
+        this.parsers = Integer.parseInt(properties.getProperty("mongodb.import.parsers",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        this.batchesInFlight = Integer.parseInt(properties.getProperty("mongodb.import.batchesInFlight", "4"));
+
+        final var defaultFormat = this.fileName != null && this.fileName.endsWith(".bson") ? "bson" : "jsonl";
+
+        this.format = Format.valueOf(properties.getProperty("mongodb.import.format", defaultFormat).toUpperCase());
+    }
+
+    void run() {
+        this.logger.entry();
+
+        if (this.fileName == null || this.fileName.isBlank()) {
+            this.logger.info("No import file is configured; skipping the bulk import");
+            this.logger.exit();
+
+            return;
+        }
+
+        this.logger.info("Beginning bulk import of {} ({})...", this.fileName, this.format);
+
+        final var startNanos = System.nanoTime();
+
+        try {
+            this.importFile();
+        } catch (final IOException ioe) {
+            this.logger.catching(ioe);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.report(System.nanoTime() - startNanos);
+
+        this.logger.info("Ending bulk import.");
+        this.logger.exit();
+    }
+
+    private void importFile() throws IOException, InterruptedException {
+        this.logger.entry();
+
+        final var collection = this.mongoClient
+                .getDatabase(this.dbName)
+                .getCollection(this.collectionName, RawBsonDocument.class);
+
+        final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(this.parsers * 2);
+        final var inFlight = new Semaphore(this.batchesInFlight);
+        final var parserPool = Executors.newFixedThreadPool(this.parsers);
+
+        try (final var writerPool = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<?>> workers = new ArrayList<>(this.parsers);
+
+            for (int i = 0; i < this.parsers; i++)
+                workers.add(parserPool.submit(() -> this.parse(chunks, collection, inFlight, writerPool)));
+
+            try {
+                this.read(chunks);
+            } finally {
+                for (int i = 0; i < this.parsers; i++)
+                    chunks.put(Chunk.END);
+            }
+
+            for (final var worker : workers) {
+                try {
+                    worker.get();
+                } catch (final ExecutionException ee) {
+                    this.logger.catching(ee);
+                }
+            }
+        } finally {
+            parserPool.shutdown();
+        }
+
+        this.logger.exit();
+    }
+
+    private void read(final BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+        this.logger.entry(chunks);
+
+        if (this.format == Format.BSON) {
+            try (final var inputStream = new BufferedInputStream(new FileInputStream(this.fileName), 1 << 16)) {
+                this.chunk(chunks, () -> this.nextDocument(inputStream));
+            }
+        } else {
+            try (final var reader = new BufferedReader(new FileReader(this.fileName, StandardCharsets.UTF_8), 1 << 16)) {
+                this.chunk(chunks, () -> this.nextLine(reader));
+            }
+        }
+
+        this.logger.exit();
+    }
+
+    @FunctionalInterface
+    private interface RecordSource {
+        Object next() throws IOException;
+    }
+
+    private void chunk(final BlockingQueue<Chunk> chunks, final RecordSource source) throws IOException, InterruptedException {
+        var records = new ArrayList<>(this.batchSize);
+        Object record;
+
+        while ((record = source.next()) != null) {
+            records.add(record);
+
+            if (records.size() == this.batchSize) {
+                chunks.put(new Chunk(records));
+
+                records = new ArrayList<>(this.batchSize);
+            }
+        }
+
+        if (!records.isEmpty())
+            chunks.put(new Chunk(records));
+    }
+
+    private String nextLine(final BufferedReader reader) throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            this.bytesRead.add(line.length() + 1L);    // Exact for ASCII, close enough otherwise
+
+            if (!line.isBlank())
+                return line;
+        }
+
+        return null;
+    }
+
+    /* Only the reader thread adds to bytesRead, so its sum is the offset of the document */
+
+    private byte[] nextDocument(final InputStream inputStream) throws IOException {
+        final var offset = this.bytesRead.sum();
+        final var lengthBytes = inputStream.readNBytes(4);
+
+        if (lengthBytes.length == 0)
+            return null;
+
+        if (lengthBytes.length < 4)
+            throw new EOFException("Truncated BSON document length at offset " + offset);
+
+        final var length = ByteBuffer.wrap(lengthBytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+        if (length < MIN_DOCUMENT_LENGTH || length > MAX_DOCUMENT_LENGTH)
+            throw new IOException("Invalid BSON document length " + length + " at offset " + offset);
+
+        final var bytes = new byte[length];
+
+        System.arraycopy(lengthBytes, 0, bytes, 0, 4);
+
+        if (inputStream.readNBytes(bytes, 4, length - 4) != length - 4)
+            throw new EOFException("Truncated BSON document at offset " + offset);
+
+        this.bytesRead.add(length);
+
+        return bytes;
+    }
+
+    private Void parse(final BlockingQueue<Chunk> chunks,
+                       final MongoCollection<RawBsonDocument> collection,
+                       final Semaphore inFlight,
+                       final ExecutorService writerPool) throws InterruptedException {
+        Chunk chunk;
+
+        while ((chunk = chunks.take()) != Chunk.END) {
+            final List<RawBsonDocument> documents = new ArrayList<>(chunk.records().size());
+
+            for (final var record : chunk.records()) {
+                try {
+                    documents.add(record instanceof byte[] bytes
+                            ? new RawBsonDocument(bytes)
+                            : RawBsonDocument.parse((String) record));
+                } catch (final RuntimeException re) {
+                    this.logger.warn("Skipping an unparseable record: {}", re.getMessage());
+                    this.documentsFailed.increment();
+                }
+            }
+
+            inFlight.acquire();
+
+            try {
+                writerPool.execute(() -> {
+                    try {
+                        this.insert(collection, documents);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (final RejectedExecutionException ree) {
+                inFlight.release();
+
+                throw ree;
+            }
+        }
+
+        return null;
+    }
+
+    private void insert(final MongoCollection<RawBsonDocument> collection, final List<RawBsonDocument> documents) {
+        if (documents.isEmpty())
+            return;
+
+        try {
+            final var result = collection.insertMany(documents, new InsertManyOptions().ordered(false));
+
+            this.documentsInserted.add(result.getInsertedIds().size());
+        } catch (final MongoBulkWriteException mbwe) {
+            this.logger.catching(mbwe);
+
+            this.documentsInserted.add(mbwe.getWriteResult().getInsertedCount());
+            this.documentsFailed.add(mbwe.getWriteErrors().size());
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+
+            this.documentsFailed.add(documents.size());
+        }
+    }
+
+    private void report(final long elapsedNanos) {
+        this.logger.entry(elapsedNanos);
+
+        final var seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        final var inserted = this.documentsInserted.sum();
+        final var megabytes = this.bytesRead.sum() / (1024.0 * 1024.0);
+
+        if (this.logger.isInfoEnabled()) {
+            this.logger.info("Documents inserted: {}; failed: {}", inserted, this.documentsFailed.sum());
+            this.logger.info("Elapsed: {} s; {} docs/sec; {} MB/sec (batch size {}, parsers {}, batches in flight {})",
+                    String.format("%.2f", seconds),
+                    String.format("%.0f", inserted / seconds),
+                    String.format("%.2f", megabytes / seconds),
+                    this.batchSize,
+                    this.parsers,
+                    this.batchesInFlight);
+        }
+
+        this.logger.exit();
+    }
+}
@@ -0,0 +1,420 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BulkRetry.java    0.23.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.23.0
+ * @since     0.23.0
+ */
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.Function;
+
+import java.util.regex.Pattern;
+
+import org.bson.BsonValue;
+
+import org.bson.codecs.CollectibleCodec;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Retries the failed part of a bulkWrite or insertMany. The
+ * write errors of a MongoBulkWriteException name the index
+ * of every operation that failed; the retryable ones are
+ * resubmitted on their own after a bounded, jittered backoff
+ * while the permanent ones, such as duplicate keys and
+ * validation failures, are reported. For an ordered write
+ * the operations after the first error never ran, so they
+ * are resubmitted with it.
+ *
+ * <p>A failure of the whole batch that carries a retryable
+ * label, or a network failure, is ambiguous: the driver has
+ * already retried once, and any part of the batch may have
+ * been applied. Only a batch made up purely of inserts is
+ * replayed then, because each document is given its _id
+ * before the first attempt and so cannot be inserted twice;
+ * an insert that comes back on the replay as a duplicate of
+ * its own _id had landed and is counted as inserted. Any
+ * other batch is not replayed, since updates such as $inc
+ * would be applied again, and is reported as indeterminate.
+ */
+final class BulkRetry {
+    /* Server error codes for transient conditions: stepdowns, shutdowns, interruptions, timeouts and write conflicts */
+
+    private static final Set<Integer> RETRYABLE_CODES = Set.of(
+            6, 7, 50, 89, 91, 112, 189, 262, 9001, 10107, 11600, 11602, 13435, 13436);
+
+    private static final String RETRYABLE_WRITE_ERROR_LABEL = "RetryableWriteError";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String ID_INDEX = "_id_";
+
+    /* The server names the violated index in the message; the write error's details do not carry it */
+
+    private static final Pattern DUPLICATE_KEY_INDEX = Pattern.compile("index: (\\S+) dup key");
+
+    /**
+     * The outcome of a retried write. The indexes of the
+     * permanent errors are those of the original operations.
+     *
+     * @param   inserted        long
+     * @param   matched         long
+     * @param   modified        long
+     * @param   deleted         long
+     * @param   upserted        long
+     * @param   insertedIds     java.util.List&lt;org.bson.BsonValue&gt;
+     * @param   attempts        int
+     * @param   retried         long    Operations resubmitted, summed over the retries
+     * @param   saved           long    Operations left out of each retry that a full-batch replay would have resubmitted
+     * @param   exhausted       long    Retryable operations still failing after the last attempt
+     * @param   notAttempted    long    Operations after a permanent error in an ordered write
+     * @param   indeterminate   long    Operations of a batch that failed ambiguously and was not replayed
+     * @param   landed          long    Inserts found on a replay to have been applied already; counted in inserted
+     * @param   notApplied      java.util.List&lt;java.lang.Integer&gt;    The indexes of the exhausted and not attempted operations
+     * @param   permanentErrors java.util.List&lt;com.mongodb.bulk.BulkWriteError&gt;
+     */
+    record Outcome(long inserted,
+                   long matched,
+                   long modified,
+                   long deleted,
+                   long upserted,
+                   List<BsonValue> insertedIds,
+                   int attempts,
+                   long retried,
+                   long saved,
+                   long exhausted,
+                   long notAttempted,
+                   long indeterminate,
+                   long landed,
+                   List<Integer> notApplied,
+                   List<BulkWriteError> permanentErrors) {
+        /**
+         * The operations not known to have been applied.
+         *
+         * @return  long
+         */
+        long failed() {
+            return this.permanentErrors.size() + this.exhausted + this.notAttempted + this.indeterminate;
+        }
+    }
+
+    /* The counts of one attempt */
+
+    private record Counts(long inserted, long matched, long modified, long deleted, long upserted, List<BsonValue> insertedIds) {
+        private static Counts of(final BulkWriteResult result) {
+            if (!result.wasAcknowledged())
+                return new Counts(0, 0, 0, 0, 0, List.of());
+
+            return new Counts(result.getInsertedCount(),
+                    result.getMatchedCount(),
+                    result.getModifiedCount(),
+                    result.getDeletedCount(),
+                    result.getUpserts().size(),
+                    result.getInserts().stream().map(BulkWriteInsert::getId).toList());
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    BulkRetry(final int maxAttempts, final long initialBackoffMillis, final long maxBackoffMillis) {
+        super();
+
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Create a retry layer from the mongodb.retry.* keys.
+     *
+     * @param   properties  java.util.Properties
+     * @return              net.jmp.demo.mongodb.atlas.BulkRetry
+     */
+    static BulkRetry fromProperties(final Properties properties) {
+        return new BulkRetry(Integer.parseInt(properties.getProperty("mongodb.retry.maxAttempts", "4")),
+                Long.parseLong(properties.getProperty("mongodb.retry.initialBackoffMillis", "100")),
+                Long.parseLong(properties.getProperty("mongodb.retry.maxBackoffMillis", "2000")));
+    }
+
+    /**
+     * The number of attempts made at each operation.
+     *
+     * @return  int
+     */
+    int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    /**
+     * Write the models, retrying those that fail transiently.
+     *
+     * @param   <T>         The type of document
+     * @param   collection  com.mongodb.client.MongoCollection&lt;T&gt;
+     * @param   models      java.util.List&lt;? extends com.mongodb.client.model.WriteModel&lt;T&gt;&gt;
+     * @param   options     com.mongodb.client.model.BulkWriteOptions
+     * @return              net.jmp.demo.mongodb.atlas.BulkRetry.Outcome
+     */
+    <T> Outcome bulkWrite(final MongoCollection<T> collection,
+                          final List<? extends WriteModel<T>> models,
+                          final BulkWriteOptions options) {
+        final var codec = this.collectibleCodec(collection);
+        final List<WriteModel<T>> prepared = new ArrayList<>(models.size());
+
+        boolean insertsOnly = codec != null;
+
+        for (final var model : models) {
+            if (codec != null && model instanceof InsertOneModel<T> insert) {
+                prepared.add(new InsertOneModel<>(codec.generateIdIfAbsentFromDocument(insert.getDocument())));
+            } else {
+                prepared.add(model);
+
+                insertsOnly = false;
+            }
+        }
+
+        return this.retry(prepared, options.isOrdered(), insertsOnly, batch -> Counts.of(collection.bulkWrite(batch, options)));
+    }
+
+    /**
+     * Insert the documents, retrying those that fail transiently.
+     *
+     * @param   <T>         The type of document
+     * @param   collection  com.mongodb.client.MongoCollection&lt;T&gt;
+     * @param   documents   java.util.List&lt;? extends T&gt;
+     * @param   options     com.mongodb.client.model.InsertManyOptions
+     * @return              net.jmp.demo.mongodb.atlas.BulkRetry.Outcome
+     */
+    <T> Outcome insertMany(final MongoCollection<T> collection,
+                           final List<? extends T> documents,
+                           final InsertManyOptions options) {
+        final var codec = this.collectibleCodec(collection);
+        final List<T> prepared = new ArrayList<>(documents.size());
+
+        for (final var document : documents)
+            prepared.add(codec != null ? codec.generateIdIfAbsentFromDocument(document) : document);
+
+        return this.retry(prepared, options.isOrdered(), codec != null, batch -> {
+            final var result = collection.insertMany(batch, options);
+            final var ids = List.copyOf(result.getInsertedIds().values());
+
+            return new Counts(ids.size(), 0, 0, 0, 0, ids);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CollectibleCodec<T> collectibleCodec(final MongoCollection<T> collection) {
+        return collection.getCodecRegistry().get(collection.getDocumentClass()) instanceof CollectibleCodec<?> codec
+                ? (CollectibleCodec<T>) codec
+                : null;
+    }
+
+    private <M> Outcome retry(final List<M> operations, final boolean ordered, final boolean insertsOnly, final Function<List<M>, Counts> write) {
+        this.logger.entry(operations.size(), ordered, insertsOnly);
+
+        final List<BsonValue> insertedIds = new ArrayList<>();
+        final List<BulkWriteError> permanentErrors = new ArrayList<>();
+        final List<Integer> notApplied = new ArrayList<>();
+        final Set<Integer> replayed = new HashSet<>();
+        final long[] totals = new long[5];
+
+        List<Integer> pending = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++)
+            pending.add(i);
+
+        int attempts = 0;
+        long retried = 0;
+        long saved = 0;
+        long indeterminate = 0;
+        long landed = 0;
+        boolean resume = false;     // Going on past an insert that had landed is not a retry
+
+        while (!pending.isEmpty() && (resume || attempts < this.maxAttempts)) {
+            if (!resume) {
+                if (attempts > 0) {
+                    retried += pending.size();
+
+                    this.backoff(attempts);
+                }
+
+                attempts++;
+            }
+
+            resume = false;
+
+            final var indexes = pending;
+            final var batch = indexes.stream().map(operations::get).toList();
+
+            try {
+                this.add(totals, insertedIds, write.apply(batch));
+
+                pending = List.of();
+            } catch (final MongoBulkWriteException mbwe) {
+                this.add(totals, insertedIds, Counts.of(mbwe.getWriteResult()));
+
+                final var writeErrors = mbwe.getWriteErrors();
+                final List<Integer> retry = new ArrayList<>();
+
+                if (ordered && !writeErrors.isEmpty()) {
+                    final var error = writeErrors.getFirst();   // An ordered write stops at its first error
+
+                    if (this.hasLanded(error, indexes, replayed)) {
+                        landed++;
+                        retry.addAll(indexes.subList(error.getIndex() + 1, indexes.size()));
+                        resume = true;
+                    } else if (RETRYABLE_CODES.contains(error.getCode())) {
+                        retry.addAll(indexes.subList(error.getIndex(), indexes.size()));
+                    } else {
+                        permanentErrors.add(this.remap(error, indexes));
+                        notApplied.addAll(indexes.subList(error.getIndex() + 1, indexes.size()));
+                    }
+                } else {
+                    for (final var error : writeErrors) {
+                        if (this.hasLanded(error, indexes, replayed))
+                            landed++;
+                        else if (RETRYABLE_CODES.contains(error.getCode()))
+                            retry.add(indexes.get(error.getIndex()));
+                        else
+                            permanentErrors.add(this.remap(error, indexes));
+                    }
+                }
+
+                if (mbwe.getWriteConcernError() != null)
+                    this.logger.warn("Write concern error: {}", mbwe.getWriteConcernError().getMessage());
+
+                if (!retry.isEmpty() && !resume)
+                    saved += indexes.size() - retry.size();
+
+                pending = retry;
+            } catch (final MongoException me) {
+                if (!this.isRetryable(me))
+                    throw me;
+
+                if (insertsOnly) {
+                    this.logger.warn("Retrying a batch of {} insert(s) after: {}", indexes.size(), me.getMessage());
+
+                    replayed.addAll(indexes);
+                } else {
+                    this.logger.warn("A batch of {} operation(s) may or may not have been applied after: {}", indexes.size(), me.getMessage());
+
+                    indeterminate += indexes.size();
+                    pending = List.of();
+                }
+            }
+        }
+
+        if (!pending.isEmpty())
+            this.logger.warn("{} operation(s) still failing after {} attempt(s)", pending.size(), attempts);
+
+        final var notAttempted = notApplied.size();
+
+        notApplied.addAll(pending);
+
+        final var outcome = new Outcome(totals[0] + landed, totals[1], totals[2], totals[3], totals[4],
+                List.copyOf(insertedIds),
+                attempts,
+                retried,
+                saved,
+                pending.size(),
+                notAttempted,
+                indeterminate,
+                landed,
+                List.copyOf(notApplied),
+                List.copyOf(permanentErrors));
+
+        this.logger.exit(outcome);
+
+        return outcome;
+    }
+
+    /**
+     * The name of the unique index a duplicate key error
+     * violated.
+     *
+     * @param   error   com.mongodb.bulk.BulkWriteError
+     * @return          java.lang.String    Null if the error is not a duplicate key or names no index
+     */
+    static String duplicateKeyIndex(final BulkWriteError error) {
+        if (error.getCode() != DUPLICATE_KEY || error.getMessage() == null)
+            return null;
+
+        final var matcher = DUPLICATE_KEY_INDEX.matcher(error.getMessage());
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /* A replayed insert that collides with its own _id was applied by the attempt that failed */
+
+    private boolean hasLanded(final BulkWriteError error, final List<Integer> indexes, final Set<Integer> replayed) {
+        return replayed.contains(indexes.get(error.getIndex())) && ID_INDEX.equals(duplicateKeyIndex(error));
+    }
+
+    private BulkWriteError remap(final BulkWriteError error, final List<Integer> indexes) {
+        return new BulkWriteError(error.getCode(), error.getMessage(), error.getDetails(), indexes.get(error.getIndex()));
+    }
+
+    private void add(final long[] totals, final List<BsonValue> insertedIds, final Counts counts) {
+        totals[0] += counts.inserted();
+        totals[1] += counts.matched();
+        totals[2] += counts.modified();
+        totals[3] += counts.deleted();
+        totals[4] += counts.upserted();
+
+        insertedIds.addAll(counts.insertedIds());
+    }
+
+    private boolean isRetryable(final MongoException exception) {
+        return exception.hasErrorLabel(RETRYABLE_WRITE_ERROR_LABEL)
+                || exception instanceof MongoSocketException
+                || exception instanceof MongoTimeoutException
+                || RETRYABLE_CODES.contains(exception.getCode());
+    }
+
+    /* Exponential backoff with full jitter, bounded by the maximum */
+
+    private void backoff(final int attempt) {
+        final var ceiling = Math.min(this.maxBackoffMillis, this.initialBackoffMillis << Math.min(attempt - 1, 20));
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+
+            throw new MongoInterruptedException("Interrupted backing off a bulk write retry", ie);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)BulkWriteExecutor.java    0.23.0  10/17/2026
+ * (#)BulkWriteExecutor.java    0.22.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.23.0
+ * @since     0.22.0
+ */
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Writes an unbounded stream of write models as a pipeline
+ * of bulkWrite batches. Batches are cut at the current batch
+ * size, at the server's maxWriteBatchSize, or when the raw
+ * documents in them reach maxMessageSizeBytes, and up to a
+ * configured number run at once on virtual threads.
+ *
+ * <p>The batch size adapts to the observed latency: it grows
+ * by a fixed step while batches finish within the target and
+ * is halved when one takes longer. An ordered executor keeps
+ * a single batch in flight, since a later batch must not run
+ * before an earlier one has succeeded, and drops everything
+ * submitted after the first failure. The failed part of a
+ * batch is resubmitted through a BulkRetry before the batch
+ * counts as failed.
+ *
+ * <p>Models are submitted from one thread; the counts may be
+ * read from any thread.
+ *
+ * @param   <T> The type of document
+ */
+final class BulkWriteExecutor<T> implements AutoCloseable {
+    private static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 100_000;
+    private static final int DEFAULT_MAX_MESSAGE_SIZE_BYTES = 48_000_000;
+
+    /**
+     * The aggregate outcome of everything submitted.
+     *
+     * @param   inserted    long
+     * @param   matched     long
+     * @param   modified    long
+     * @param   deleted     long
+     * @param   upserted    long
+     * @param   failed      long    Operations the server rejected or that were never acknowledged
+     * @param   skipped     long    Operations dropped after an ordered failure
+     * @param   batches     long
+     * @param   batchSize   int     The batch size the executor settled on
+     * @param   retried     long    Operations resubmitted after transient failures
+     * @param   saved       long    Operations not replayed because only the failed part of a batch was retried
+     */
+    record Result(long inserted,
+                  long matched,
+                  long modified,
+                  long deleted,
+                  long upserted,
+                  long failed,
+                  long skipped,
+                  long batches,
+                  int batchSize,
+                  long retried,
+                  long saved) {}
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<T> collection;
+    private final BulkRetry retry;
+    private final boolean ordered;
+    private final int batchesInFlight;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int batchSizeStep;
+    private final long targetLatencyNanos;
+    private final int maxMessageSizeBytes;
+    private final Semaphore inFlight;
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger batchSize;
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder upserted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+
+    private volatile boolean stopped;
+
+    private List<WriteModel<T>> batch;
+    private long batchBytes;
+
+    /**
+     * Create an executor. The server's batch and message size
+     * limits are read once from the hello command.
+     *
+     * @param   database            com.mongodb.client.MongoDatabase    The database of the collection
+     * @param   collection          com.mongodb.client.MongoCollection&lt;T&gt;
+     * @param   ordered             boolean
+     * @param   batchesInFlight     int     Ignored, as one, when ordered
+     * @param   initialBatchSize    int
+     * @param   maxBatchSize        int
+     * @param   targetLatencyMillis long    The batch latency the batch size is adapted to
+     * @param   retry               net.jmp.demo.mongodb.atlas.BulkRetry    Resubmits the failed part of a batch
+     */
+    BulkWriteExecutor(final MongoDatabase database,
+                      final MongoCollection<T> collection,
+                      final boolean ordered,
+                      final int batchesInFlight,
+                      final int initialBatchSize,
+                      final int maxBatchSize,
+                      final long targetLatencyMillis,
+                      final BulkRetry retry) {
+        super();
+
+        this.collection = collection;
+        this.retry = retry;
+        this.ordered = ordered;
+        this.batchesInFlight = ordered ? 1 : Math.max(batchesInFlight, 1);
+        this.inFlight = new Semaphore(this.batchesInFlight);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+
+        var maxWriteBatchSize = DEFAULT_MAX_WRITE_BATCH_SIZE;
+        var maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE_BYTES;
+
+        try {
+            final var hello = database.runCommand(new Document("hello", 1));
+
+            maxWriteBatchSize = hello.getInteger("maxWriteBatchSize", maxWriteBatchSize);
+            maxMessageSize = hello.getInteger("maxMessageSizeBytes", maxMessageSize);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.maxMessageSizeBytes = maxMessageSize;
+        this.maxBatchSize = Math.clamp(maxBatchSize, 1, maxWriteBatchSize);
+        this.minBatchSize = Math.min(Math.max(initialBatchSize / 10, 1), this.maxBatchSize);
+        this.batchSizeStep = Math.max(this.maxBatchSize / 20, 1);
+        this.batchSize = new AtomicInteger(Math.clamp(initialBatchSize, this.minBatchSize, this.maxBatchSize));
+        this.batch = new ArrayList<>(this.batchSize.get());
+    }
+
+    /**
+     * Add a write model, sending the current batch first if
+     * the model would take it over its limits. Blocks while
+     * the maximum number of batches is already in flight.
+     *
+     * @param   model   com.mongodb.client.model.WriteModel&lt;T&gt;
+     */
+    void submit(final WriteModel<T> model) {
+        if (this.stopped) {
+            this.skipped.increment();
+
+            return;
+        }
+
+        final var bytes = this.sizeOf(model);
+
+        if (!this.batch.isEmpty() && this.batchBytes + bytes > this.maxMessageSizeBytes)
+            this.send();
+
+        this.batch.add(model);
+        this.batchBytes += bytes;
+
+        if (this.batch.size() >= this.batchSize.get())
+            this.send();
+    }
+
+    /**
+     * Send the current batch and wait for every batch in
+     * flight to finish.
+     */
+    void flush() {
+        this.logger.entry();
+
+        if (!this.batch.isEmpty())
+            this.send();
+
+        this.acquire(this.batchesInFlight);
+        this.inFlight.release(this.batchesInFlight);
+
+        this.logger.exit();
+    }
+
+    /**
+     * The counts so far; complete once flushed.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.BulkWriteExecutor.Result
+     */
+    Result getResult() {
+        return new Result(this.inserted.sum(),
+                this.matched.sum(),
+                this.modified.sum(),
+                this.deleted.sum(),
+                this.upserted.sum(),
+                this.failed.sum(),
+                this.skipped.sum(),
+                this.batches.sum(),
+                this.batchSize.get(),
+                this.retried.sum(),
+                this.saved.sum());
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.flush();
+        } finally {
+            this.writers.close();
+        }
+    }
+
+    /* Only raw documents have a size without encoding them; the driver still splits anything larger */
+
+    private long sizeOf(final WriteModel<T> model) {
+        final Object document = switch (model) {
+            case InsertOneModel<T> insert -> insert.getDocument();
+            case ReplaceOneModel<T> replace -> replace.getReplacement();
+            default -> null;
+        };
+
+        return document instanceof RawBsonDocument raw ? raw.getByteBuffer().remaining() : 0;
+    }
+
+    private void send() {
+        final var models = this.batch;
+
+        this.batch = new ArrayList<>(this.batchSize.get());
+        this.batchBytes = 0;
+
+        this.acquire(1);
+
+        if (this.stopped) {
+            this.inFlight.release();
+            this.skipped.add(models.size());
+
+            return;
+        }
+
+        this.writers.execute(() -> {
+            try {
+                this.write(models);
+            } finally {
+                this.inFlight.release();
+            }
+        });
+    }
+
+    private void acquire(final int permits) {
+        try {
+            this.inFlight.acquire(permits);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+
+            throw new MongoInterruptedException("Interrupted waiting for a bulk write batch", ie);
+        }
+    }
+
+    private void write(final List<WriteModel<T>> models) {
+        final var startNanos = System.nanoTime();
+
+        try {
+            final var outcome = this.retry.bulkWrite(this.collection, models, new BulkWriteOptions().ordered(this.ordered));
+
+            this.count(outcome);
+
+            if (outcome.failed() > 0) {
+                this.logger.warn("Bulk write batch of {} had {} failed operation(s) after {} attempt(s)",
+                        models.size(),
+                        outcome.failed(),
+                        outcome.attempts());
+
+                if (this.ordered)
+                    this.stopped = true;
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+
+            this.failed.add(models.size());
+
+            if (this.ordered)
+                this.stopped = true;
+        }
+
+        this.batches.increment();
+        this.adapt(System.nanoTime() - startNanos);
+    }
+
+    private void count(final BulkRetry.Outcome outcome) {
+        this.inserted.add(outcome.inserted());
+        this.matched.add(outcome.matched());
+        this.modified.add(outcome.modified());
+        this.deleted.add(outcome.deleted());
+        this.upserted.add(outcome.upserted());
+        this.failed.add(outcome.failed() - outcome.notAttempted());     // Permanent, exhausted and indeterminate
+        this.skipped.add(outcome.notAttempted());
+        this.retried.add(outcome.retried());
+        this.saved.add(outcome.saved());
+    }
+
+    /* Additive increase while within the target latency, multiplicative decrease otherwise */
+
+    private void adapt(final long latencyNanos) {
+        this.batchSize.updateAndGet(size -> latencyNanos <= this.targetLatencyNanos
+                ? Math.min(size + this.batchSizeStep, this.maxBatchSize)
+                : Math.max(size / 2, this.minBatchSize));
+    }
+}
@@ -0,0 +1,457 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)CoalescingWriteBuffer.java    0.24.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.24.0
+ * @since     0.24.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNumber;
+import org.bson.BsonValue;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * A write-behind buffer that coalesces updateOne calls on the
+ * same filter. Consecutive $inc, $set and $mul operators on
+ * one document are merged into a single update: increments
+ * add, multipliers multiply, and a $set absorbs the later
+ * arithmetic on its field. Operators that cannot be merged
+ * with what is pending, such as a $mul after an $inc of the
+ * same field or any other operator, seal the pending update
+ * so that the two are written in order.
+ *
+ * <p>The buffer is flushed as one ordered bulkWrite, through
+ * a BulkRetry, when it holds the maximum number of pending
+ * updates, at a fixed interval and on close. Filters are
+ * assumed to name distinct documents.
+ *
+ * <p>No update is applied twice. Updates that a flush knows
+ * were not applied, because their retries ran out or an
+ * earlier update in the ordered write failed, are put back
+ * at the head of the buffer for the next flush. Updates that
+ * failed permanently, or that were in a batch that failed
+ * ambiguously and so may or may not have been applied, are
+ * dropped and counted rather than written again, since
+ * replaying an $inc could apply it twice.
+ *
+ * <p>On close the buffer is flushed again for as long as
+ * updates are put back and fewer remain each time, up to the
+ * BulkRetry's number of attempts, so every update that can
+ * safely be written is tried before shutdown. Any still not
+ * applied after that are counted as unwritten.
+ *
+ * @param   <T> The type of document
+ */
+final class CoalescingWriteBuffer<T> implements AutoCloseable {
+    private static final String INC = "$inc";
+    private static final String MUL = "$mul";
+    private static final String SET = "$set";
+
+    /* The identity of a pending update */
+
+    private record Key(BsonDocument filter, boolean upsert) {}
+
+    /* The merged operators pending for one key */
+
+    private static final class Pending {
+        private final BsonDocument set = new BsonDocument();
+        private final BsonDocument inc = new BsonDocument();
+        private final BsonDocument mul = new BsonDocument();
+
+        private BsonDocument toUpdate() {
+            final var update = new BsonDocument();
+
+            if (!this.set.isEmpty())
+                update.append(SET, this.set);
+
+            if (!this.inc.isEmpty())
+                update.append(INC, this.inc);
+
+            if (!this.mul.isEmpty())
+                update.append(MUL, this.mul);
+
+            return update;
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<T> collection;
+    private final BulkRetry retry;
+    private final int maxPending;
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private Map<Key, Pending> pending = new LinkedHashMap<>();
+    private List<WriteModel<T>> sealed = new ArrayList<>();
+    private long updatesReceived;
+    private long operationsWritten;
+    private long flushes;
+    private long dropped;
+    private long unwritten;
+    private boolean closed;
+
+    /**
+     * Create a buffer.
+     *
+     * @param   collection          com.mongodb.client.MongoCollection&lt;T&gt;
+     * @param   retry               net.jmp.demo.mongodb.atlas.BulkRetry
+     * @param   maxPending          int     The number of updates held before flushing
+     * @param   flushIntervalMillis long    The longest an update waits to be flushed
+     */
+    CoalescingWriteBuffer(final MongoCollection<T> collection,
+                          final BulkRetry retry,
+                          final int maxPending,
+                          final long flushIntervalMillis) {
+        super();
+
+        this.collection = collection;
+        this.retry = retry;
+        this.maxPending = Math.max(maxPending, 1);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("coalescing-flusher").factory());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffer an updateOne.
+     *
+     * @param   filter  org.bson.conversions.Bson
+     * @param   update  org.bson.conversions.Bson
+     * @param   upsert  boolean
+     */
+    void updateOne(final Bson filter, final Bson update, final boolean upsert) {
+        final var registry = this.collection.getCodecRegistry();
+        final var key = new Key(filter.toBsonDocument(BsonDocument.class, registry), upsert);
+        final var operators = update.toBsonDocument(BsonDocument.class, registry);
+
+        boolean full;
+
+        this.bufferLock.lock();
+
+        try {
+            if (this.closed)
+                throw new IllegalStateException("The buffer is closed");
+
+            this.updatesReceived++;
+
+            final var current = this.pending.get(key);
+
+            if (current != null && !this.canMerge(current, operators))
+                this.sealed.add(this.toModel(key, this.pending.remove(key)));
+
+            if (this.isMergeable(operators))
+                this.merge(key, operators);
+            else
+                this.sealed.add(new UpdateOneModel<>(key.filter(), operators, new UpdateOptions().upsert(upsert)));
+
+            full = this.pending.size() + this.sealed.size() >= this.maxPending;
+        } finally {
+            this.bufferLock.unlock();
+        }
+
+        if (full)
+            this.flush();
+    }
+
+    /**
+     * Write everything buffered so far.
+     *
+     * @return  int     The number of updates put back because they were not applied
+     */
+    int flush() {
+        this.writeLock.lock();     // Keeps the flushes, and so the writes to one key, in order
+
+        try {
+            final List<WriteModel<T>> models;
+
+            this.bufferLock.lock();
+
+            try {
+                models = this.sealed;
+
+                this.pending.forEach((key, merged) -> models.add(this.toModel(key, merged)));
+
+                this.sealed = new ArrayList<>();
+                this.pending = new LinkedHashMap<>();
+            } finally {
+                this.bufferLock.unlock();
+            }
+
+            return models.isEmpty() ? 0 : this.write(models);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /* Put what was not applied back ahead of anything buffered since; drop what may have been */
+
+    private int write(final List<WriteModel<T>> models) {
+        final BulkRetry.Outcome outcome;
+
+        try {
+            outcome = this.retry.bulkWrite(this.collection, models, new BulkWriteOptions().ordered(true));
+        } catch (final MongoException me) {
+            this.bufferLock.lock();
+
+            try {
+                this.dropped += models.size();
+            } finally {
+                this.bufferLock.unlock();
+            }
+
+            throw me;
+        }
+
+        final var requeued = outcome.notApplied().stream().map(models::get).toList();
+        final var lost = outcome.permanentErrors().size() + outcome.indeterminate();
+
+        if (!requeued.isEmpty())
+            this.logger.warn("{} coalesced update(s) were not applied and are requeued", requeued.size());
+
+        if (lost > 0)
+            this.logger.warn("{} coalesced update(s) failed or may not have been applied and are dropped", lost);
+
+        this.bufferLock.lock();
+
+        try {
+            this.sealed.addAll(0, requeued);
+
+            this.operationsWritten += models.size() - requeued.size() - lost;
+            this.dropped += lost;
+            this.flushes++;
+        } finally {
+            this.bufferLock.unlock();
+        }
+
+        return requeued.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            this.flush();
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+    }
+
+    /**
+     * Stop the timed flushes and write what remains, flushing
+     * again while updates are put back and fewer remain each
+     * time, up to the BulkRetry's number of attempts.
+     */
+    @Override
+    public void close() {
+        this.bufferLock.lock();
+
+        try {
+            this.closed = true;
+        } finally {
+            this.bufferLock.unlock();
+        }
+
+        this.flusher.shutdown();
+
+        try {
+            if (!this.flusher.awaitTermination(1, TimeUnit.MINUTES))
+                this.logger.warn("A timed flush is still running");
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            var remaining = this.flush();
+
+            for (int round = 1; remaining > 0 && round < this.retry.getMaxAttempts(); round++) {
+                final var previous = remaining;
+
+                remaining = this.flush();
+
+                if (remaining >= previous)
+                    break;      // No progress; another round would fail the same way
+            }
+        } finally {
+            this.bufferLock.lock();
+
+            try {
+                this.pending.forEach((key, merged) -> this.sealed.add(this.toModel(key, merged)));     // Nothing is merged once closed
+
+                if (!this.sealed.isEmpty())
+                    this.logger.warn("{} coalesced update(s) were not applied before close", this.sealed.size());
+
+                this.unwritten += this.sealed.size();
+                this.sealed = new ArrayList<>();
+                this.pending = new LinkedHashMap<>();
+            } finally {
+                this.bufferLock.unlock();
+            }
+        }
+
+        this.logger.info("{}", this);
+    }
+
+    @Override
+    public String toString() {
+        this.bufferLock.lock();
+
+        try {
+            return String.format("%d update(s) written as %d operation(s) in %d flush(es) (%.1fx fewer writes); %d operation(s) dropped, %d unwritten",
+                    this.updatesReceived,
+                    this.operationsWritten,
+                    this.flushes,
+                    this.operationsWritten == 0 ? 0.0 : (double) this.updatesReceived / this.operationsWritten,
+                    this.dropped,
+                    this.unwritten);
+        } finally {
+            this.bufferLock.unlock();
+        }
+    }
+
+    private WriteModel<T> toModel(final Key key, final Pending merged) {
+        return new UpdateOneModel<>(key.filter(), merged.toUpdate(), new UpdateOptions().upsert(key.upsert()));
+    }
+
+    private boolean isMergeable(final BsonDocument operators) {
+        for (final var operator : operators.keySet()) {
+            if (!SET.equals(operator) && !INC.equals(operator) && !MUL.equals(operator))
+                return false;
+        }
+
+        return true;
+    }
+
+    /* Whether the operators can be folded into what is pending without changing the result */
+
+    private boolean canMerge(final Pending current, final BsonDocument operators) {
+        if (!this.isMergeable(operators))
+            return false;
+
+        for (final var entry : operators.entrySet()) {
+            final var operator = entry.getKey();
+
+            for (final var field : entry.getValue().asDocument().entrySet()) {
+                final var name = field.getKey();
+                final var value = field.getValue();
+
+                if (this.conflictsWithPath(current, name))
+                    return false;
+
+                if (SET.equals(operator))
+                    continue;   // A $set replaces whatever is pending for the field
+
+                final var opposite = INC.equals(operator) ? current.mul : current.inc;
+
+                if (opposite.containsKey(name) || !value.isNumber() || !this.isNumberIfPresent(current, name))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isNumberIfPresent(final Pending current, final String name) {
+        for (final var fields : List.of(current.set, current.inc, current.mul)) {
+            if (fields.containsKey(name) && !fields.get(name).isNumber())
+                return false;
+        }
+
+        return true;
+    }
+
+    /* A field and its own subfields cannot be updated together */
+
+    private boolean conflictsWithPath(final Pending current, final String name) {
+        for (final var fields : List.of(current.set, current.inc, current.mul)) {
+            for (final var other : fields.keySet()) {
+                if (!other.equals(name) && (other.startsWith(name + ".") || name.startsWith(other + ".")))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void merge(final Key key, final BsonDocument operators) {
+        final var current = this.pending.computeIfAbsent(key, k -> new Pending());
+
+        for (final var entry : operators.entrySet()) {
+            for (final var field : entry.getValue().asDocument().entrySet()) {
+                final var name = field.getKey();
+                final var value = field.getValue();
+
+                switch (entry.getKey()) {
+                    case SET -> {
+                        current.set.put(name, value);
+                        current.inc.remove(name);
+                        current.mul.remove(name);
+                    }
+                    case INC -> {
+                        if (current.set.containsKey(name))
+                            current.set.put(name, add(current.set.get(name).asNumber(), value.asNumber()));
+                        else
+                            current.inc.put(name, current.inc.containsKey(name) ? add(current.inc.get(name).asNumber(), value.asNumber()) : value);
+                    }
+                    default -> {
+                        if (current.set.containsKey(name))
+                            current.set.put(name, multiply(current.set.get(name).asNumber(), value.asNumber()));
+                        else
+                            current.mul.put(name, current.mul.containsKey(name) ? multiply(current.mul.get(name).asNumber(), value.asNumber()) : value);
+                    }
+                }
+            }
+        }
+    }
+
+    /* Arithmetic that keeps the narrowest BSON type the server would produce */
+
+    private static BsonValue add(final BsonNumber left, final BsonNumber right) {
+        if (left.isDouble() || right.isDouble())
+            return new BsonDouble(left.doubleValue() + right.doubleValue());
+
+        final var sum = Math.addExact(left.longValue(), right.longValue());
+
+        return left.isInt32() && right.isInt32() && sum == (int) sum ? new BsonInt32((int) sum) : new BsonInt64(sum);
+    }
+
+    private static BsonValue multiply(final BsonNumber left, final BsonNumber right) {
+        if (left.isDouble() || right.isDouble())
+            return new BsonDouble(left.doubleValue() * right.doubleValue());
+
+        final var product = Math.multiplyExact(left.longValue(), right.longValue());
+
+        return left.isInt32() && right.isInt32() && product == (int) product ? new BsonInt32((int) product) : new BsonInt64(product);
+    }
+}
@@ -0,0 +1,160 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)CollectionWatcher.java    0.33.0  10/17/2026
+ * (#)CollectionWatcher.java    0.17.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.33.0
+ * @since     0.17.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.bson.Document;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Follows the change stream of one collection on a virtual
+ * thread and hands every event to a listener. The stream is
+ * polled with tryNext so that the watching thread, the only
+ * one touching the cursor, notices a close within the await
+ * time. Change streams need a replica set; on a standalone
+ * server the watcher logs the failure and stops.
+ *
+ * <p>Dropping or renaming the collection, or dropping its
+ * database, invalidates the stream: the listener is handed
+ * the invalidate event, the watcher stops, and isWatching
+ * turns false. A new watcher is needed to follow the
+ * collection again.
+ */
+final class CollectionWatcher implements AutoCloseable {
+    private static final long MAX_AWAIT_MILLIS = 500;
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final UnaryOperator<ChangeStreamIterable<Document>> options;
+    private final Consumer<ChangeStreamDocument<Document>> listener;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final Thread thread;
+
+    private volatile boolean closed;
+    private volatile boolean watching;
+
+    CollectionWatcher(final MongoCollection<Document> collection, final Consumer<ChangeStreamDocument<Document>> listener) {
+        this(collection, UnaryOperator.identity(), listener);
+    }
+
+    /**
+     * Watch with options set on the change stream, such as
+     * where to resume and which document images to include.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   options     java.util.function.UnaryOperator&lt;com.mongodb.client.ChangeStreamIterable&lt;org.bson.Document&gt;&gt;
+     * @param   listener    java.util.function.Consumer&lt;com.mongodb.client.model.changestream.ChangeStreamDocument&lt;org.bson.Document&gt;&gt;
+     */
+    CollectionWatcher(final MongoCollection<Document> collection,
+                      final UnaryOperator<ChangeStreamIterable<Document>> options,
+                      final Consumer<ChangeStreamDocument<Document>> listener) {
+        super();
+
+        this.collection = collection;
+        this.options = options;
+        this.listener = listener;
+        this.thread = Thread.ofVirtual().name("watcher-" + collection.getNamespace()).start(this::watch);
+    }
+
+    /**
+     * Wait until the change stream is open, so that
+     * no change made after this returns is missed.
+     *
+     * @return  boolean     True if the stream opened
+     */
+    boolean awaitStarted() {
+        try {
+            this.started.await(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return this.watching;
+    }
+
+    private void watch() {
+        this.logger.entry();
+
+        try (final var cursor = this.options.apply(this.collection.watch()).maxAwaitTime(MAX_AWAIT_MILLIS, TimeUnit.MILLISECONDS).cursor()) {
+            this.watching = true;
+            this.started.countDown();
+
+            while (!this.closed) {
+                final var event = cursor.tryNext();
+
+                if (event != null) {
+                    this.listener.accept(event);
+
+                    if (event.getOperationType() == OperationType.INVALIDATE) {
+                        this.logger.warn("Stopped watching {}: the change stream was invalidated", this.collection.getNamespace());
+
+                        break;
+                    }
+                }
+
+                /* A closed server cursor returns null at once forever after */
+
+                if (event == null && cursor.getServerCursor() == null) {
+                    this.logger.warn("Stopped watching {}: the change stream ended", this.collection.getNamespace());
+
+                    break;
+                }
+            }
+        } catch (final MongoException me) {
+            if (!this.closed)
+                this.logger.warn("Stopped watching {}: {}", this.collection.getNamespace(), me.getMessage());
+        } finally {
+            this.watching = false;
+            this.started.countDown();
+        }
+
+        this.logger.exit();
+    }
+
+    /**
+     * True while the stream is open and followed; false before
+     * it opens and after it fails, is invalidated or is closed.
+     *
+     * @return  boolean
+     */
+    boolean isWatching() {
+        return this.watching;
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+
+        try {
+            this.thread.join();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
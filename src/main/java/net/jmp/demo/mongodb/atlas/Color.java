@@ -0,0 +1,32 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)Color.java    0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import org.bson.types.ObjectId;
+
+/**
+ * A document of the colors collection. The identifier is
+ * null until the codec generates one on insert.
+ *
+ * @param   id      org.bson.types.ObjectId
+ * @param   color   java.lang.String
+ * @param   qty     int
+ */
+record Color(ObjectId id, String color, int qty) {
+    Color(final String color, final int qty) {
+        this(null, color, qty);
+    }
+
+    Color withId(final ObjectId newId) {
+        return new Color(newId, this.color, this.qty);
+    }
+}
@@ -0,0 +1,91 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)ColorCodec.java   0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes and decodes a Color as {_id, color, qty}.
+ */
+final class ColorCodec implements CollectibleCodec<Color> {
+    @Override
+    public void encode(final BsonWriter writer, final Color value, final EncoderContext encoderContext) {
+        writer.writeStartDocument();
+
+        if (value.id() != null)
+            writer.writeObjectId("_id", value.id());
+
+        RecordCodecs.writeNullableString(writer, "color", value.color());
+        writer.writeInt32("qty", value.qty());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Color decode(final BsonReader reader, final DecoderContext decoderContext) {
+        ObjectId id = null;
+        String color = null;
+        int qty = 0;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> {
+                    if (reader.getCurrentBsonType() == BsonType.OBJECT_ID)
+                        id = reader.readObjectId();
+                    else
+                        reader.skipValue();
+                }
+                case "color" -> color = RecordCodecs.readNullableString(reader);
+                case "qty" -> qty = RecordCodecs.readInt(reader);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Color(id, color, qty);
+    }
+
+    @Override
+    public Class<Color> getEncoderClass() {
+        return Color.class;
+    }
+
+    @Override
+    public Color generateIdIfAbsentFromDocument(final Color document) {
+        return document.id() == null ? document.withId(new ObjectId()) : document;
+    }
+
+    @Override
+    public boolean documentHasId(final Color document) {
+        return document.id() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(final Color document) {
+        if (document.id() == null)
+            throw new IllegalStateException("The color has no _id");
+
+        return new BsonObjectId(document.id());
+    }
+}
@@ -0,0 +1,266 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)CommandMetrics.java   0.18.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.18.0
+ * @since     0.18.0
+ */
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Records the latency of every command sent by the client in
+ * an HdrHistogram per command name, database and collection,
+ * along with failure counts and reply sizes. The statistics
+ * are published over JMX and summarized in the log at a fixed
+ * interval.
+ *
+ * <p>Once a command's statistics exist, recording touches only
+ * preallocated state: the statistics are found by command,
+ * database and collection name in nested maps, without
+ * building a key, the started event parks them in a slot of
+ * a fixed table indexed by request identifier, and the
+ * completion event records into a wait-free Recorder. Finding
+ * the collection name and the reply size read the command and
+ * reply BSON, which allocates a little; reply sizes can be
+ * turned off.
+ */
+final class CommandMetrics implements CommandListener, CommandMetricsMXBean, AutoCloseable {
+    private static final int SLOTS = 4096;      // A power of two larger than the commands ever in flight
+    private static final String OBJECT_NAME = "net.jmp.demo.mongodb.atlas:type=CommandMetrics";
+
+    /* The statistics of one command name and namespace */
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram cumulative = new Histogram(3);
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder replyBytes = new LongAdder();
+
+        private Histogram intervalHistogram;
+
+        private synchronized Histogram snapshot() {
+            this.intervalHistogram = this.recorder.getIntervalHistogram(this.intervalHistogram);
+            this.cumulative.add(this.intervalHistogram);
+
+            return this.cumulative;
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final Map<String, Map<String, Map<String, Stats>>> statsByCommand = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray slotRequestIds = new AtomicIntegerArray(SLOTS);
+    private final AtomicReferenceArray<Stats> slotStats = new AtomicReferenceArray<>(SLOTS);
+    private final boolean recordReplySizes;
+    private final ScheduledExecutorService reporter;
+
+    private ObjectName objectName;
+
+    CommandMetrics(final Properties properties) {
+        super();
+
+        this.recordReplySizes = Boolean.parseBoolean(properties.getProperty("mongodb.metrics.replySizes", "true"));
+
+        final var logSeconds = Long.parseLong(properties.getProperty("mongodb.metrics.logSeconds", "60"));
+
+        this.reporter = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("command-metrics").factory());
+        this.reporter.scheduleAtFixedRate(this::logSummary, logSeconds, logSeconds, TimeUnit.SECONDS);
+
+        try {
+            this.objectName = new ObjectName(OBJECT_NAME);
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.objectName);
+        } catch (final JMException jme) {
+            this.logger.catching(jme);
+
+            this.objectName = null;
+        }
+    }
+
+    @Override
+    public void commandStarted(final CommandStartedEvent event) {
+        final var stats = this.stats(event.getCommandName(), event.getDatabaseName(), event.getCommand());
+        final var slot = event.getRequestId() & (SLOTS - 1);
+
+        this.slotStats.set(slot, stats);
+        this.slotRequestIds.set(slot, event.getRequestId());
+    }
+
+    @Override
+    public void commandSucceeded(final CommandSucceededEvent event) {
+        final var stats = this.complete(event.getRequestId());
+
+        if (stats != null) {
+            stats.recorder.recordValue(event.getElapsedTime(TimeUnit.MICROSECONDS));
+
+            if (this.recordReplySizes)
+                stats.replyBytes.add(this.sizeOf(event.getResponse()));
+        }
+    }
+
+    @Override
+    public void commandFailed(final CommandFailedEvent event) {
+        final var stats = this.complete(event.getRequestId());
+
+        if (stats != null) {
+            stats.recorder.recordValue(event.getElapsedTime(TimeUnit.MICROSECONDS));
+            stats.failures.increment();
+        }
+    }
+
+    private Stats complete(final int requestId) {
+        final var slot = requestId & (SLOTS - 1);
+
+        return this.slotRequestIds.get(slot) == requestId ? this.slotStats.get(slot) : null;
+    }
+
+    private Stats stats(final String commandName, final String databaseName, final BsonDocument command) {
+        final var collectionValue = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        final var collectionName = collectionValue != null && collectionValue.isString()
+                ? collectionValue.asString().getValue()
+                : "";
+
+        final var byDatabase = getOrCreate(this.statsByCommand, commandName, ConcurrentHashMap::new);
+        final var byCollection = getOrCreate(byDatabase, databaseName, ConcurrentHashMap::new);
+
+        return getOrCreate(byCollection, collectionName, Stats::new);
+    }
+
+    /* A plain get first, since computeIfAbsent allocates a lambda capture on every call */
+
+    private static <V> V getOrCreate(final Map<String, V> map, final String key, final Supplier<V> factory) {
+        final var value = map.get(key);
+
+        return value != null ? value : map.computeIfAbsent(key, k -> factory.get());
+    }
+
+    /* Command replies are backed by their wire bytes; the first four bytes hold the size */
+
+    private int sizeOf(final BsonDocument response) {
+        try (final var reader = response.asBsonReader()) {
+            return reader instanceof BsonBinaryReader binaryReader ? binaryReader.getBsonInput().readInt32() : 0;
+        }
+    }
+
+    private Map<String, Stats> snapshotKeys() {
+        final Map<String, Stats> keys = new TreeMap<>();
+
+        this.statsByCommand.forEach((commandName, byDatabase) ->
+                byDatabase.forEach((databaseName, byCollection) ->
+                        byCollection.forEach((collectionName, stats) ->
+                                keys.put(commandName + " " + databaseName + (collectionName.isEmpty() ? "" : "." + collectionName), stats))));
+
+        return keys;
+    }
+
+    private Stats lookup(final String key) {
+        final var stats = this.snapshotKeys().get(key);
+
+        if (stats == null)
+            throw new IllegalArgumentException("Unknown command key: " + key);
+
+        return stats;
+    }
+
+    @Override
+    public String[] getCommandKeys() {
+        return this.snapshotKeys().keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getCount(final String key) {
+        return this.lookup(key).snapshot().getTotalCount();
+    }
+
+    @Override
+    public long getFailures(final String key) {
+        return this.lookup(key).failures.sum();
+    }
+
+    @Override
+    public long getReplyBytes(final String key) {
+        return this.lookup(key).replyBytes.sum();
+    }
+
+    @Override
+    public double getLatencyMicros(final String key, final double percentile) {
+        return this.lookup(key).snapshot().getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String getSummary() {
+        final var summary = new StringBuilder();
+
+        this.snapshotKeys().forEach((key, stats) -> {
+            final var histogram = stats.snapshot();
+
+            summary.append(String.format("%n  %-50s count=%d failures=%d p50=%dus p99=%dus max=%dus replyBytes=%d",
+                    key,
+                    histogram.getTotalCount(),
+                    stats.failures.sum(),
+                    histogram.getValueAtPercentile(50.0),
+                    histogram.getValueAtPercentile(99.0),
+                    histogram.getMaxValue(),
+                    stats.replyBytes.sum()));
+        });
+
+        return summary.toString();
+    }
+
+    private void logSummary() {
+        if (this.logger.isInfoEnabled() && !this.statsByCommand.isEmpty())
+            this.logger.info("Command latencies:{}", this.getSummary());
+    }
+
+    @Override
+    public void close() {
+        this.reporter.shutdownNow();
+        this.logSummary();
+
+        if (this.objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+            } catch (final JMException jme) {
+                this.logger.catching(jme);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)CommandMetricsMXBean.java 0.18.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.18.0
+ * @since     0.18.0
+ */
+
+/**
+ * The JMX view of the per-command metrics. A key is the
+ * command name followed by its namespace, for example
+ * "find training.colors". The interface is public only
+ * because the MXBean introspector requires it.
+ */
+public interface CommandMetricsMXBean {
+    String[] getCommandKeys();
+
+    long getCount(String key);
+
+    long getFailures(String key);
+
+    long getReplyBytes(String key);
+
+    double getLatencyMicros(String key, double percentile);
+
+    String getSummary();
+}
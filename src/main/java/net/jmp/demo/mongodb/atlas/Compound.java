@@ -1,13 +1,16 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Compound.java 0.30.0  10/17/2026
+ * (#)Compound.java 0.29.0  10/17/2026
+ * (#)Compound.java 0.28.0  10/17/2026
  * (#)Compound.java 0.9.0   12/07/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.9.0
+ * @version   0.30.0
  * @since     0.9.0
  */
 
@@ -15,6 +18,7 @@ import com.mongodb.MongoBulkWriteException;
 
 import com.mongodb.MongoException;
 
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 
 import com.mongodb.client.model.*;
@@ -23,6 +27,8 @@ import java.util.*;
 
 import java.util.concurrent.TimeUnit;
 
+import java.util.function.Consumer;
+
 import org.bson.Document;
 
 import org.slf4j.LoggerFactory;
@@ -34,6 +40,22 @@ final class Compound {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final int bookingRooms;
+    private final int bookingClients;
+    private final int bookingRequests;
+    private final long bookingHoldMillis;
+    private final List<BookingLoad.Strategy> bookingStrategies;
+    private final int bookingMaxRetries;
+    private final long bookingInitialBackoffMillis;
+    private final long bookingMaxBackoffMillis;
+    private final int queueJobs;
+    private final List<Integer> queueConsumers;
+    private final long queueLeaseMillis;
+    private final int queueMaxAttempts;
+    private final int queueBatchSize;
+    private final BulkRetry retry;
+    private final int transactionOperations;
+    private final TransactionRunner transactions;
 
     Compound(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -42,6 +64,26 @@ final class Compound {
 
         this.dbName = properties.getProperty("mongodb.compound.db", "training");
         this.collectionName = properties.getProperty("mongodb.compound.collection", "food");
+        this.bookingRooms = Integer.parseInt(properties.getProperty("mongodb.booking.rooms", "0"));
+        this.bookingClients = Integer.parseInt(properties.getProperty("mongodb.booking.clients", "100"));
+        this.bookingRequests = Integer.parseInt(properties.getProperty("mongodb.booking.requestsPerClient", "100"));
+        this.bookingHoldMillis = Long.parseLong(properties.getProperty("mongodb.booking.holdMillis", "1"));
+        this.bookingMaxRetries = Integer.parseInt(properties.getProperty("mongodb.booking.maxRetries", "5"));
+        this.bookingInitialBackoffMillis = Long.parseLong(properties.getProperty("mongodb.booking.initialBackoffMillis", "1"));
+        this.bookingMaxBackoffMillis = Long.parseLong(properties.getProperty("mongodb.booking.maxBackoffMillis", "50"));
+        this.bookingStrategies = Arrays.stream(properties.getProperty("mongodb.booking.strategies", "racy,find_and_modify,optimistic").split(","))
+                .map(strategy -> BookingLoad.Strategy.valueOf(strategy.trim().toUpperCase()))
+                .toList();
+        this.queueJobs = Integer.parseInt(properties.getProperty("mongodb.queue.jobs", "0"));
+        this.queueConsumers = Arrays.stream(properties.getProperty("mongodb.queue.consumers", "1,4,16,64").split(","))
+                .map(consumers -> Integer.parseInt(consumers.trim()))
+                .toList();
+        this.queueLeaseMillis = Long.parseLong(properties.getProperty("mongodb.queue.leaseMillis", "30000"));
+        this.queueMaxAttempts = Integer.parseInt(properties.getProperty("mongodb.queue.maxAttempts", "5"));
+        this.queueBatchSize = Integer.parseInt(properties.getProperty("mongodb.queue.batchSize", "1000"));
+        this.retry = BulkRetry.fromProperties(properties);
+        this.transactionOperations = Integer.parseInt(properties.getProperty("mongodb.transactions.operations", "0"));
+        this.transactions = TransactionRunner.fromProperties(properties, mongoClient);
     }
 
     void run() {
@@ -58,6 +100,15 @@ final class Compound {
             this.raceCondition();
             this.resetRaceCondition();
             this.noRaceCondition();
+
+            if (this.bookingRooms > 0)
+                this.bookingLoad();
+
+            if (this.queueJobs > 0)
+                this.workQueue();
+
+            if (this.transactionOperations > 0)
+                this.transactionalBookings();
         } finally {
             this.deleteData();
         }
@@ -264,6 +315,162 @@ final class Compound {
         this.logger.exit();
     }
 
+    /*
+     * Book rooms from many clients at once with each of the
+     * configured strategies, in a collection of their own.
+     */
+
+    private void bookingLoad() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var load = new BookingLoad(database.getCollection(this.collectionName + "Rooms"),
+                this.bookingRooms,
+                this.bookingClients,
+                this.bookingRequests,
+                this.bookingHoldMillis,
+                this.bookingMaxRetries,
+                this.bookingInitialBackoffMillis,
+                this.bookingMaxBackoffMillis);
+
+        try {
+            for (final var strategy : this.bookingStrategies) {
+                final var report = load.run(strategy);
+
+                if (this.logger.isInfoEnabled())
+                    this.logger.info("{}: {} booking(s), {}/sec; {} unavailable; {} retries; {} abandoned; {} double booking(s); p50 {} us, p99 {} us, max {} us",
+                            report.strategy(),
+                            report.bookings(),
+                            String.format("%.0f", report.bookingsPerSec()),
+                            report.unavailable(),
+                            report.retries(),
+                            report.abandoned(),
+                            report.doubleBookings(),
+                            report.p50Micros(),
+                            report.p99Micros(),
+                            report.maxMicros());
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        } finally {
+            load.dropRooms();
+        }
+
+        this.logger.exit();
+    }
+
+    /*
+     * Enqueue jobs of three priorities and drain them with each
+     * of the configured numbers of consumers, in a collection
+     * of their own.
+     */
+
+    private void workQueue() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName + "Jobs");
+        final var queue = new WorkQueue(collection, this.retry, this.queueLeaseMillis, this.queueMaxAttempts, this.queueBatchSize);
+
+        try {
+            queue.ensureIndex();
+
+            for (final var consumers : this.queueConsumers) {
+                final List<Document> payloads = new ArrayList<>(this.queueJobs);
+
+                for (int i = 0; i < this.queueJobs; i++)
+                    payloads.add(new Document("n", i));
+
+                final var perPriority = payloads.size() / 3;
+
+                queue.enqueue(payloads.subList(0, perPriority), 0, 0);
+                queue.enqueue(payloads.subList(perPriority, 2 * perPriority), 1, 0);
+                queue.enqueue(payloads.subList(2 * perPriority, payloads.size()), 2, 0);
+
+                final var result = queue.drain(consumers, payload -> true, 0);
+
+                if (this.logger.isInfoEnabled())
+                    this.logger.info("{} consumer(s): {} job(s), {}/sec; {} nacked; {} lost lease(s); claim p50 {} us, p99 {} us, max {} us",
+                            result.consumers(),
+                            result.acked(),
+                            String.format("%.0f", result.jobsPerSec()),
+                            result.nacked(),
+                            result.lostLeases(),
+                            result.claimLatency().getValueAtPercentile(50.0),
+                            result.claimLatency().getValueAtPercentile(99.0),
+                            result.claimLatency().getMaxValue());
+
+                collection.deleteMany(Filters.eq("status", WorkQueue.DONE));
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        } finally {
+            collection.drop();
+        }
+
+        this.logger.exit();
+    }
+
+    /*
+     * Book rooms in transactions, a group of bookings per
+     * commit. There are half as many rooms as bookings, so
+     * every room is asked for twice and the second request
+     * finds it taken. A booking that reserves its room counts
+     * it on a totals document in the same transaction, so the
+     * count must always equal the number of reserved rooms.
+     */
+
+    private void transactionalBookings() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName + "Bookings");
+        final var totals = Filters.eq("_id", "totals");
+        final var roomCount = Math.max(this.transactionOperations / 2, 1);
+        final List<Document> rooms = new ArrayList<>(roomCount);
+        final List<Consumer<ClientSession>> operations = new ArrayList<>(this.transactionOperations);
+
+        for (int i = 0; i < roomCount; i++)
+            rooms.add(new Document("_id", i).append("reserved", false).append("guest", null));
+
+        for (int i = 0; i < this.transactionOperations; i++) {
+            final var room = i % roomCount;
+            final var guest = "guest-" + i;
+
+            operations.add(session -> {
+                final var result = collection.updateOne(session,
+                        Filters.and(Filters.eq("_id", room), Filters.eq("reserved", false)),
+                        Updates.combine(Updates.set("reserved", true), Updates.set("guest", guest)));
+
+                if (result.getModifiedCount() == 1)
+                    collection.updateOne(session, totals, Updates.inc("bookings", 1));
+            });
+        }
+
+        try {
+            collection.drop();
+            collection.insertMany(rooms);
+            collection.insertOne(new Document("_id", "totals").append("bookings", 0));
+
+            this.transactions.run(operations);
+
+            final var reserved = collection.countDocuments(Filters.eq("reserved", true));
+            final var counted = Objects.requireNonNull(collection.find(totals).first()).getInteger("bookings");
+
+            if (this.logger.isInfoEnabled())
+                this.logger.info("Transactional bookings: {}; {} room(s) reserved, {} counted", this.transactions, reserved, counted);
+
+            if (reserved != counted)
+                this.logger.warn("{} room(s) are reserved but {} booking(s) were counted", reserved, counted);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        } finally {
+            collection.drop();
+        }
+
+        this.logger.exit();
+    }
+
     private void deleteData() {
         this.logger.entry();
 
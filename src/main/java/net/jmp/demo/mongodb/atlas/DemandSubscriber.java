@@ -0,0 +1,166 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)DemandSubscriber.java 0.20.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.20.0
+ * @since     0.20.0
+ */
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A subscriber that never asks for more than it has room
+ * for. It requests a fixed window of items up front and asks
+ * for another half window only after the consumer has
+ * handled half of the previous one, so a slow consumer holds
+ * back the publisher and, for a cursor, its getMore round
+ * trips instead of letting results pile up in memory. The
+ * consumer runs on the driver's thread; the caller waits for
+ * completion with await.
+ *
+ * @param   <T> The type of item
+ */
+final class DemandSubscriber<T> implements Subscriber<T> {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final Consumer<? super T> consumer;
+    private final long window;
+    private final long refill;
+
+    private Subscription subscription;
+    private long received;
+    private long outstanding;
+    private volatile Throwable error;
+
+    /**
+     * Create a subscriber.
+     *
+     * @param   demand      long    The most items requested and not yet received; at least one
+     * @param   consumer    java.util.function.Consumer&lt;? super T&gt;
+     */
+    DemandSubscriber(final long demand, final Consumer<? super T> consumer) {
+        super();
+
+        this.window = Math.max(demand, 1);
+        this.refill = Math.max(this.window / 2, 1);
+        this.consumer = consumer;
+    }
+
+    /**
+     * Subscribe to the publisher and wait for it to finish,
+     * handing every item to the consumer.
+     *
+     * @param   <T>         The type of item
+     * @param   publisher   org.reactivestreams.Publisher&lt;T&gt;
+     * @param   demand      long
+     * @param   consumer    java.util.function.Consumer&lt;? super T&gt;
+     * @return              long    The number of items consumed
+     */
+    static <T> long consume(final Publisher<T> publisher, final long demand, final Consumer<? super T> consumer) {
+        final var subscriber = new DemandSubscriber<T>(demand, consumer);
+
+        publisher.subscribe(subscriber);
+
+        return subscriber.await();
+    }
+
+    /**
+     * Subscribe to a publisher of at most a few items, such
+     * as the result of a write, and return them.
+     *
+     * @param   <T>         The type of item
+     * @param   publisher   org.reactivestreams.Publisher&lt;T&gt;
+     * @return              java.util.List&lt;T&gt;
+     */
+    static <T> List<T> collect(final Publisher<T> publisher) {
+        final List<T> items = new ArrayList<>(1);
+
+        consume(publisher, Long.MAX_VALUE, items::add);
+
+        return items;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {
+        this.subscription = subscription;
+        this.outstanding = this.window;
+
+        subscription.request(this.window);
+    }
+
+    @Override
+    public void onNext(final T item) {
+        this.outstanding--;
+
+        try {
+            this.consumer.accept(item);
+        } catch (final RuntimeException re) {
+            this.subscription.cancel();
+            this.onError(re);
+
+            return;
+        }
+
+        this.received++;
+
+        if (this.window != Long.MAX_VALUE && this.outstanding <= this.window - this.refill) {
+            this.outstanding += this.refill;
+            this.subscription.request(this.refill);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        this.error = throwable;
+        this.done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        this.done.countDown();
+    }
+
+    /**
+     * Wait for the publisher to complete.
+     *
+     * @return  long    The number of items consumed
+     */
+    long await() {
+        try {
+            this.done.await();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+
+            if (this.subscription != null)
+                this.subscription.cancel();
+
+            throw new MongoInterruptedException("Interrupted waiting for a publisher", ie);
+        }
+
+        final var throwable = this.error;
+
+        if (throwable instanceof RuntimeException re)
+            throw re;
+
+        if (throwable != null)
+            throw new MongoException("Publisher failed", throwable);
+
+        return this.received;
+    }
+}
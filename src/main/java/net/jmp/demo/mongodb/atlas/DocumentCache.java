@@ -0,0 +1,236 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)DocumentCache.java    0.17.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.17.0
+ * @since     0.17.0
+ */
+
+import com.mongodb.MongoNamespace;
+
+import com.mongodb.client.MongoCollection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * A read-through cache of single-document lookups keyed by
+ * namespace, filter, projection and sort. It is bounded in
+ * size with least-recently-used eviction, and each entry
+ * expires after a time to live. Watching a collection drops
+ * every entry for its namespace whenever the change stream
+ * reports a write, because a cached filter cannot be matched
+ * to the changed document cheaply. Absent documents are
+ * cached as well.
+ */
+final class DocumentCache implements AutoCloseable {
+    record Key(MongoNamespace namespace, BsonDocument filter, BsonDocument projection, BsonDocument sort) {}
+
+    private record Entry(Document document, long expiresAtNanos) {}
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final long timeToLiveNanos;
+    private final Map<Key, Entry> entries;
+    private final Map<MongoNamespace, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<MongoNamespace, CollectionWatcher> watchers = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    DocumentCache(final int maximumSize, final long timeToLiveMillis) {
+        super();
+
+        this.timeToLiveNanos = timeToLiveMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                final var evict = this.size() > maximumSize;
+
+                if (evict)
+                    DocumentCache.this.evictions.increment();
+
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Return the first document matching the filter, loading
+     * it from the collection on a miss or an expired entry.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   filter      org.bson.conversions.Bson
+     * @param   projection  org.bson.conversions.Bson
+     * @param   sort        org.bson.conversions.Bson
+     * @return              org.bson.Document   May be null
+     */
+    Document findOne(final MongoCollection<Document> collection,
+                     final Bson filter,
+                     final Bson projection,
+                     final Bson sort) {
+        final var namespace = collection.getNamespace();
+        final var key = new Key(namespace, filter.toBsonDocument(), projection.toBsonDocument(), sort.toBsonDocument());
+        final var now = System.nanoTime();
+
+        synchronized (this.entries) {
+            final var entry = this.entries.get(key);
+
+            if (entry != null) {
+                if (now - entry.expiresAtNanos() < 0) {
+                    this.hits.increment();
+
+                    return entry.document();
+                }
+
+                this.entries.remove(key);
+                this.expirations.increment();
+            }
+        }
+
+        this.misses.increment();
+
+        /*
+         * Load outside the lock. If the namespace is invalidated
+         * while loading, the possibly stale result is not cached.
+         */
+
+        final var generation = this.generation(namespace);
+        final var before = generation.get();
+        final var document = collection.find(filter).projection(projection).sort(sort).first();
+
+        synchronized (this.entries) {
+            if (generation.get() == before)
+                this.entries.put(key, new Entry(document, System.nanoTime() + this.timeToLiveNanos));
+        }
+
+        return document;
+    }
+
+    /**
+     * Invalidate the entries of the collection whenever it
+     * changes. Returns false if the change stream could not
+     * be opened, in which case only the time to live applies.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @return              boolean
+     */
+    boolean watch(final MongoCollection<Document> collection) {
+        this.logger.entry(collection);
+
+        final var namespace = collection.getNamespace();
+
+        /*
+         * Wait for the stream outside the map: awaitStarted can
+         * block, and inside compute it would hold the bin lock.
+         */
+
+        var watcher = this.watchers.get(namespace);
+
+        if (watcher != null && !watcher.awaitStarted()) {
+            final var fresh = new CollectionWatcher(collection, event -> this.invalidate(namespace));
+
+            if (this.watchers.replace(namespace, watcher, fresh)) {
+                watcher.close();    // Invalidated by a drop or a rename; watch afresh
+                watcher = fresh;
+            } else {
+                fresh.close();      // Another caller replaced it first
+                watcher = null;
+            }
+        }
+
+        if (watcher == null)
+            watcher = this.watchers.computeIfAbsent(namespace, ns -> new CollectionWatcher(collection, event -> this.invalidate(ns)));
+
+        final var watching = watcher.awaitStarted();
+
+        this.logger.exit(watching);
+
+        return watching;
+    }
+
+    void invalidate(final MongoNamespace namespace) {
+        this.generation(namespace).incrementAndGet();
+
+        synchronized (this.entries) {
+            final List<Key> keys = new ArrayList<>();
+
+            for (final var key : this.entries.keySet())
+                if (key.namespace().equals(namespace))
+                    keys.add(key);
+
+            keys.forEach(this.entries::remove);
+
+            this.invalidations.add(keys.size());
+        }
+    }
+
+    private AtomicLong generation(final MongoNamespace namespace) {
+        return this.generations.computeIfAbsent(namespace, ns -> new AtomicLong());
+    }
+
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    long getMisses() {
+        return this.misses.sum();
+    }
+
+    long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    long getExpirations() {
+        return this.expirations.sum();
+    }
+
+    long getInvalidations() {
+        return this.invalidations.sum();
+    }
+
+    int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.watchers.values().forEach(CollectionWatcher::close);
+        this.watchers.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d hits=%d misses=%d evictions=%d expirations=%d invalidations=%d",
+                this.size(),
+                this.getHits(),
+                this.getMisses(),
+                this.getEvictions(),
+                this.getExpirations(),
+                this.getInvalidations());
+    }
+}
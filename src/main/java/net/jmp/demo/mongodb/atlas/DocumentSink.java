@@ -0,0 +1,36 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)DocumentSink.java 0.15.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.15.0
+ */
+
+import java.io.IOException;
+
+import org.bson.RawBsonDocument;
+
+/**
+ * A destination for documents read as raw BSON. Sinks
+ * are not thread-safe and are meant to be used for one
+ * dump at a time.
+ */
+interface DocumentSink extends AutoCloseable {
+    /**
+     * Write one document.
+     *
+     * @param   document    org.bson.RawBsonDocument
+     * @throws  java.io.IOException
+     */
+    void write(RawBsonDocument document) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
@@ -1,23 +1,41 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Find.java 0.27.0  10/17/2026
+ * (#)Find.java 0.26.0  10/17/2026
+ * (#)Find.java 0.17.0  10/17/2026
+ * (#)Find.java 0.16.0  10/17/2026
+ * (#)Find.java 0.15.0  10/17/2026
+ * (#)Find.java 0.13.0  10/17/2026
  * (#)Find.java 0.8.0   12/06/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.8.0
+ * @version   0.27.0
  * @since     0.8.0
  */
 
+import com.mongodb.MongoException;
+
 import com.mongodb.client.MongoClient;
 
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
 import java.util.Properties;
 
+import java.util.concurrent.TimeUnit;
+
+import org.bson.conversions.Bson;
+
 import org.slf4j.LoggerFactory;
 
 import org.slf4j.ext.XLogger;
@@ -30,6 +48,29 @@ final class Find {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final int batchSize;
+    private final int prefetchDepth;
+    private final boolean cacheEnabled;
+    private final int cacheSize;
+    private final long cacheTimeToLiveMillis;
+    private final int cacheLookups;
+    private final Bson titleFilter = eq("title", "The Room");
+    private final Bson titleSort = Sorts.descending("imdb.rating");
+    private final Bson titleProjection = Projections.fields(
+            Projections.include("title", "imdb"),
+            Projections.excludeId());
+    private final Bson shortFilter = lt("runtime", 15);
+    private final Bson shortProjection = Projections.fields(
+            Projections.include("title", "runtime", "imdb"),
+            Projections.excludeId());
+    private final Bson shortSort = Sorts.descending("title");
+    private final int scanPartitions;
+    private final String scanKey;
+    private final PartitionedScan.Strategy scanStrategy;
+    private final boolean scanOrdered;
+    private final String dumpFileName;
+    private final boolean adviseIndexes;
+    private final boolean createIndexes;
 
     Find(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -38,14 +79,42 @@ final class Find {
 
         this.dbName = properties.getProperty("mongodb.find.db", "sample_mflix");
         this.collectionName = properties.getProperty("mongodb.find.collection", "movies");
+        this.scanPartitions = Integer.parseInt(properties.getProperty("mongodb.find.scan.partitions", "0"));
+        this.scanKey = properties.getProperty("mongodb.find.scan.key", "_id");
+        this.scanStrategy = PartitionedScan.Strategy.valueOf(properties.getProperty("mongodb.find.scan.strategy", "bucket_auto").toUpperCase());
+        this.scanOrdered = Boolean.parseBoolean(properties.getProperty("mongodb.find.scan.ordered", "false"));
+        this.dumpFileName = properties.getProperty("mongodb.find.dump.file", "");
+        this.batchSize = Integer.parseInt(properties.getProperty("mongodb.cursor.batchSize", "0"));
+        this.prefetchDepth = Integer.parseInt(properties.getProperty("mongodb.cursor.prefetch.depth", "0"));
+        this.cacheEnabled = Boolean.parseBoolean(properties.getProperty("mongodb.find.cache.enabled", "false"));
+        this.cacheSize = Integer.parseInt(properties.getProperty("mongodb.find.cache.size", "10000"));
+        this.cacheTimeToLiveMillis = Long.parseLong(properties.getProperty("mongodb.find.cache.ttlMillis", "60000"));
+        this.cacheLookups = Integer.parseInt(properties.getProperty("mongodb.find.cache.lookups", "1000"));
+        this.adviseIndexes = Boolean.parseBoolean(properties.getProperty("mongodb.advisor.enabled", "false"));
+        this.createIndexes = Boolean.parseBoolean(properties.getProperty("mongodb.advisor.createIndexes", "false"));
     }
 
     void run() {
         this.logger.entry();
         this.logger.info("Beginning find operations...");
 
-        this.findOneDocument();
-        this.findMultipleDocuments();
+        final List<String> indexNames = this.adviseIndexes ? this.adviseIndexes() : List.of();
+
+        try {
+            this.findOneDocument();
+            this.findMultipleDocuments();
+
+            if (this.cacheEnabled)
+                this.cachedFindOneDocument();
+
+            if (this.scanPartitions > 0)
+                this.partitionedScan();
+
+            if (!this.dumpFileName.isBlank())
+                this.dumpCollection();
+        } finally {
+            this.dropIndexes(indexNames);
+        }
 
         this.logger.info("Ending find operations.");
         this.logger.exit();
@@ -57,14 +126,10 @@ final class Find {
         final var database = this.mongoClient.getDatabase(this.dbName);
         final var collection = database.getCollection(this.collectionName);
 
-        final var projectionFields = Projections.fields(
-                Projections.include("title", "imdb"),
-                Projections.excludeId());
-
         final var document = collection
-                .find(eq("title", "The Room"))
-                .projection(projectionFields)
-                .sort(Sorts.descending("imdb.rating"))
+                .find(this.titleFilter)
+                .projection(this.titleProjection)
+                .sort(this.titleSort)
                 .first();
 
         if (document != null) {
@@ -77,29 +142,156 @@ final class Find {
         this.logger.exit();
     }
 
-    private void findMultipleDocuments() {
+    /**
+     * The queries run by the operations.
+     *
+     * @return  java.util.List&lt;net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     */
+    List<PlanShape> planShapes() {
+        return List.of(
+                PlanShape.find("findOneDocument", this.titleFilter, this.titleProjection, this.titleSort, 1),
+                PlanShape.find("findMultipleDocuments", this.shortFilter, this.shortProjection, this.shortSort, 0)
+        );
+    }
+
+    /*
+     * Explain the queries and propose, and optionally create,
+     * the indexes that would serve them.
+     */
+
+    private List<String> adviseIndexes() {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
         final var collection = database.getCollection(this.collectionName);
 
-        final var projectionFields = Projections.fields(
-                Projections.include("title", "runtime", "imdb"),
-                Projections.excludeId());
+        List<String> indexNames = List.of();
+
+        try {
+            indexNames = new IndexAdvisor(collection, this.createIndexes)
+                    .register(this.planShapes())
+                    .advise();
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit(indexNames);
+
+        return indexNames;
+    }
+
+    /* The movies collection is shared sample data; leave it with the indexes it had */
+
+    private void dropIndexes(final List<String> indexNames) {
+        this.logger.entry(indexNames);
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        for (final var indexName : indexNames) {
+            try {
+                collection.dropIndex(indexName);
+            } catch (final MongoException me) {
+                this.logger.catching(me);
+            }
+        }
+
+        this.logger.exit();
+    }
+
+    private void cachedFindOneDocument() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
 
-        try (final var cursor = collection
-                .find(lt("runtime", 15))
-                .projection(projectionFields)
-                .sort(Sorts.descending("title"))
-                .iterator()) {
+        try (final var cache = new DocumentCache(this.cacheSize, this.cacheTimeToLiveMillis)) {
+            if (!cache.watch(collection))
+                this.logger.warn("Change streams are unavailable; cached documents only expire");
+
+            final var startNanos = System.nanoTime();
+
+            for (int i = 0; i < this.cacheLookups; i++)
+                cache.findOne(collection, this.titleFilter, this.titleProjection, this.titleSort);
+
+            this.logger.info("{} cached lookup(s) took {} ms: {}",
+                    this.cacheLookups,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    cache);
+        }
+
+        this.logger.exit();
+    }
+
+    private void findMultipleDocuments() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.shortFilter)
+                .projection(this.shortProjection)
+                .sort(this.shortSort),
+                this.batchSize,
+                this.prefetchDepth)) {
             this.logger.info("There are {} results available", cursor.available());
 
             while (cursor.hasNext()) {
                 if (this.logger.isInfoEnabled())
                     this.logger.info(cursor.next().toJson());
             }
+
+            Helpers.printPrefetchTimes(cursor, this.logger);
         }
 
         this.logger.exit();
     }
+
+    private void partitionedScan() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var scan = new PartitionedScan(collection, this.scanKey, this.scanPartitions, this.scanStrategy, 1_000);
+        final var startNanos = System.nanoTime();
+
+        final var count = scan.scan(Filters.empty(),
+                Projections.include("title"),
+                this.scanOrdered,
+                doc -> this.logger.trace(doc.toJson()));
+
+        final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+
+        if (this.logger.isInfoEnabled())
+            this.logger.info("Scanned {} document(s) in {} s ({} docs/sec) with {} partition(s)",
+                    count,
+                    String.format("%.2f", seconds),
+                    String.format("%.0f", count / seconds),
+                    this.scanPartitions);
+
+        this.logger.exit();
+    }
+
+    private void dumpCollection() {
+        this.logger.entry();
+
+        final var startNanos = System.nanoTime();
+
+        try (final DocumentSink sink = this.dumpFileName.endsWith(".bson")
+                ? new BsonDocumentSink(new BufferedOutputStream(new FileOutputStream(this.dumpFileName), 1 << 16))
+                : new JsonDocumentSink(new BufferedWriter(new FileWriter(this.dumpFileName, StandardCharsets.UTF_8), 1 << 16))) {
+            Helpers.printAllDocuments(this.mongoClient, this.dbName, this.collectionName, sink, this.logger);
+        } catch (final IOException ioe) {
+            this.logger.catching(ioe);
+        }
+
+        this.logger.info("Dumped {}.{} to {} in {} ms",
+                this.dbName,
+                this.collectionName,
+                this.dumpFileName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        this.logger.exit();
+    }
 }
@@ -0,0 +1,287 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)GeoRestaurants.java   0.35.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.35.0
+ * @since     0.35.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import com.mongodb.client.model.geojson.Point;
+import com.mongodb.client.model.geojson.Position;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Nearest-restaurant queries on contact.location, which holds
+ * a legacy [longitude, latitude] pair. A compound index of a
+ * 2dsphere on the location and the categories serves both the
+ * proximity and the category, so "the nearest N restaurants
+ * in category X" is answered from the index. Distances are
+ * in meters because the query points are GeoJSON.
+ *
+ * <p>The brute-force search reads every restaurant in the
+ * category and keeps the nearest N by great-circle distance
+ * in a bounded heap; it is the baseline the indexed queries
+ * are measured against.
+ */
+final class GeoRestaurants {
+    static final String LOCATION = "contact.location";
+
+    /* The bounding box of the generated points: New York City */
+
+    static final double MIN_LONGITUDE = -74.26;
+    static final double MAX_LONGITUDE = -73.70;
+    static final double MIN_LATITUDE = 40.49;
+    static final double MAX_LATITUDE = 40.92;
+
+    private static final double EARTH_RADIUS_METERS = 6_378_100.0;
+    private static final String DISTANCE = "distance";
+    private static final String CATEGORIES = "categories";
+    private static final String[] CATEGORY_NAMES = {"Bakery", "Cafe", "Coffee", "Pizza", "Pasta", "Italian", "Steak", "Bagels", "Seafood", "Chinese"};
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+
+    GeoRestaurants(final MongoCollection<Document> collection) {
+        super();
+
+        this.collection = collection;
+    }
+
+    /**
+     * Create the location and category index unless it exists.
+     *
+     * @return  java.lang.String    The name of the index
+     */
+    String ensureIndex() {
+        return this.collection.createIndex(Indexes.compoundIndex(
+                Indexes.geo2dsphere(LOCATION),
+                Indexes.ascending(CATEGORIES)));
+    }
+
+    /**
+     * The nearest restaurants in the category with $near,
+     * nearest first.
+     *
+     * @param   longitude   double
+     * @param   latitude    double
+     * @param   category    java.lang.String
+     * @param   limit       int
+     * @param   maxMeters   double
+     * @return              java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> near(final double longitude,
+                        final double latitude,
+                        final String category,
+                        final int limit,
+                        final double maxMeters) {
+        return this.collection.find(Filters.and(
+                        Filters.near(LOCATION, point(longitude, latitude), maxMeters, null),
+                        Filters.eq(CATEGORIES, category)))
+                .limit(limit)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * The restaurants in the category within a radius, in no
+     * particular order, with $geoWithin and $centerSphere.
+     *
+     * @param   longitude   double
+     * @param   latitude    double
+     * @param   category    java.lang.String
+     * @param   meters      double
+     * @return              java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> within(final double longitude,
+                          final double latitude,
+                          final String category,
+                          final double meters) {
+        return this.collection.find(Filters.and(
+                        Filters.geoWithinCenterSphere(LOCATION, longitude, latitude, meters / EARTH_RADIUS_METERS),
+                        Filters.eq(CATEGORIES, category)))
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * The nearest restaurants in the category with a $geoNear
+     * pipeline, nearest first, each with its distance in meters.
+     *
+     * @param   longitude   double
+     * @param   latitude    double
+     * @param   category    java.lang.String
+     * @param   limit       int
+     * @param   maxMeters   double
+     * @return              java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> geoNear(final double longitude,
+                           final double latitude,
+                           final String category,
+                           final int limit,
+                           final double maxMeters) {
+        final List<Bson> pipeline = List.of(
+                Aggregates.geoNear(point(longitude, latitude), DISTANCE, GeoNearOptions.geoNearOptions()
+                        .key(LOCATION)
+                        .query(new Document(CATEGORIES, category))
+                        .maxDistance(maxMeters)
+                        .spherical()),
+                Aggregates.limit(limit));
+
+        return this.collection.aggregate(pipeline).into(new ArrayList<>());
+    }
+
+    /**
+     * The nearest restaurants in the category found by reading
+     * all of them, nearest first, each with its distance.
+     *
+     * @param   longitude   double
+     * @param   latitude    double
+     * @param   category    java.lang.String
+     * @param   limit       int
+     * @param   maxMeters   double
+     * @return              java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> bruteForce(final double longitude,
+                              final double latitude,
+                              final String category,
+                              final int limit,
+                              final double maxMeters) {
+        final var farthestFirst = new PriorityQueue<Document>(limit + 1,
+                Comparator.comparingDouble((Document doc) -> doc.getDouble(DISTANCE)).reversed());
+
+        for (final var document : this.collection.find(Filters.eq(CATEGORIES, category))) {
+            final var location = document.getEmbedded(List.of("contact", "location"), List.class);
+
+            if (location == null || location.size() < 2)
+                continue;
+
+            final var meters = distanceMeters(longitude,
+                    latitude,
+                    ((Number) location.get(0)).doubleValue(),
+                    ((Number) location.get(1)).doubleValue());
+
+            if (meters <= maxMeters) {
+                farthestFirst.add(document.append(DISTANCE, meters));
+
+                if (farthestFirst.size() > limit)
+                    farthestFirst.poll();
+            }
+        }
+
+        final var nearest = new ArrayList<>(farthestFirst);
+
+        nearest.sort(Comparator.comparingDouble(doc -> doc.getDouble(DISTANCE)));
+
+        return nearest;
+    }
+
+    /**
+     * Insert generated restaurants spread evenly over the
+     * bounding box, a batch at a time, so that millions can
+     * be loaded without holding them all. The same seed
+     * generates the same restaurants.
+     *
+     * @param   count       int
+     * @param   seed        long
+     * @param   batchSize   int
+     * @return              long    The number inserted
+     */
+    long generate(final int count, final long seed, final int batchSize) {
+        this.logger.entry(count, seed, batchSize);
+
+        final var random = new SplittableRandom(seed);
+        final var options = new InsertManyOptions().ordered(false);
+
+        long inserted = 0;
+
+        for (int start = 0; start < count; start += batchSize) {
+            final var end = Math.min(start + batchSize, count);
+            final List<Document> batch = new ArrayList<>(end - start);
+
+            for (int i = start; i < end; i++)
+                batch.add(generated(i, random));
+
+            inserted += this.collection.insertMany(batch, options).getInsertedIds().size();
+        }
+
+        this.logger.exit(inserted);
+
+        return inserted;
+    }
+
+    /**
+     * A random point in the bounding box.
+     *
+     * @param   random  java.util.SplittableRandom
+     * @return          double[]    Longitude then latitude
+     */
+    static double[] randomPoint(final SplittableRandom random) {
+        return new double[] {
+                random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE),
+                random.nextDouble(MIN_LATITUDE, MAX_LATITUDE)
+        };
+    }
+
+    /**
+     * The great-circle distance between two points, with the
+     * same earth radius the server uses for spherical queries.
+     *
+     * @param   longitude1  double
+     * @param   latitude1   double
+     * @param   longitude2  double
+     * @param   latitude2   double
+     * @return              double  Meters
+     */
+    static double distanceMeters(final double longitude1,
+                                 final double latitude1,
+                                 final double longitude2,
+                                 final double latitude2) {
+        final var phi1 = Math.toRadians(latitude1);
+        final var phi2 = Math.toRadians(latitude2);
+        final var deltaPhi = phi2 - phi1;
+        final var deltaLambda = Math.toRadians(longitude2 - longitude1);
+        final var a = Math.sin(deltaPhi / 2) * Math.sin(deltaPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(deltaLambda / 2) * Math.sin(deltaLambda / 2);
+
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /* Laid out as RestaurantCodec writes a Restaurant */
+
+    private static Document generated(final int i, final SplittableRandom random) {
+        final var point = randomPoint(random);
+        final var first = random.nextInt(CATEGORY_NAMES.length);
+        final var second = (first + 1 + random.nextInt(CATEGORY_NAMES.length - 1)) % CATEGORY_NAMES.length;
+
+        return new Document("name", "Generated Restaurant " + i)
+                .append("contact", new Document("phone", String.format("555-%07d", i))
+                        .append("email", "restaurant" + i + "@example.com")
+                        .append("location", List.of(point[0], point[1])))
+                .append("stars", random.nextInt(6))
+                .append(CATEGORIES, List.of(CATEGORY_NAMES[first], CATEGORY_NAMES[second]));
+    }
+
+    private static Point point(final double longitude, final double latitude) {
+        return new Point(new Position(longitude, latitude));
+    }
+}
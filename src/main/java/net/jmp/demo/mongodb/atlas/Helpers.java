@@ -1,6 +1,9 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Helpers.java  0.23.0  10/17/2026
+ * (#)Helpers.java  0.16.0  10/17/2026
+ * (#)Helpers.java  0.15.0  10/17/2026
  * (#)Helpers.java  0.9.0   12/07/2023
  * (#)Helpers.java  0.8.0   12/06/2023
  *
@@ -8,14 +11,19 @@ package net.jmp.demo.mongodb.atlas;
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.9.0
+ * @version   0.23.0
  * @since     0.8.0
  */
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCursor;
 
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 
 import org.bson.conversions.Bson;
 
@@ -32,13 +40,33 @@ final class Helpers {
                                   final XLogger logger) {
         logger.entry(mongoClient, databaseName, collectionName);
 
+        if (logger.isInfoEnabled())
+            printAllDocuments(mongoClient, databaseName, collectionName, new LogDocumentSink(logger), logger);
+
+        logger.exit();
+    }
+
+    /*
+     * The documents are read as raw BSON and handed to the
+     * sink without being decoded into a Document first.
+     */
+
+    static void printAllDocuments(final MongoClient mongoClient,
+                                  final String databaseName,
+                                  final String collectionName,
+                                  final DocumentSink sink,
+                                  final XLogger logger) {
+        logger.entry(mongoClient, databaseName, collectionName, sink);
+
         final var database = mongoClient.getDatabase(databaseName);
-        final var collection = database.getCollection(collectionName);
+        final var collection = database.getCollection(collectionName, RawBsonDocument.class);
 
-        collection.find().forEach(doc -> {
-            if (logger.isInfoEnabled())
-                logger.info(doc.toJson());
-        });
+        try (final var cursor = collection.find().iterator()) {
+            while (cursor.hasNext())
+                sink.write(cursor.next());
+        } catch (final IOException ioe) {
+            logger.catching(ioe);
+        }
 
         logger.exit();
     }
@@ -81,6 +109,53 @@ final class Helpers {
                 logger.info(mongoCursor.next().toJson());
         }
 
+        printPrefetchTimes(mongoCursor, logger);
+
         logger.exit();
     }
+
+    static void printCursor(final MongoCursor<RawBsonDocument> mongoCursor,
+                            final String methodName,
+                            final DocumentSink sink,
+                            final XLogger logger) {
+        logger.entry(mongoCursor, methodName, sink);
+
+        logger.info("There are {} results available for {}", mongoCursor.available(), methodName);
+
+        try {
+            while (mongoCursor.hasNext())
+                sink.write(mongoCursor.next());
+        } catch (final IOException ioe) {
+            logger.catching(ioe);
+        }
+
+        printPrefetchTimes(mongoCursor, logger);
+
+        logger.exit();
+    }
+
+    static void printPrefetchTimes(final MongoCursor<?> mongoCursor, final XLogger logger) {
+        if (mongoCursor instanceof PrefetchingCursor<?> prefetchingCursor && logger.isInfoEnabled())
+            logger.info("Consumer waited {} ms and processed for {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(prefetchingCursor.getWaitNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(prefetchingCursor.getProcessNanos()));
+    }
+
+    static void printRetryOutcome(final BulkRetry.Outcome outcome, final XLogger logger) {
+        if (logger.isInfoEnabled()) {
+            outcome.permanentErrors()
+                    .forEach(error -> logger.warn("Operation {} failed permanently: {}", error.getIndex(), error.getMessage()));
+
+            if (outcome.indeterminate() > 0)
+                logger.warn("{} operation(s) may or may not have been applied", outcome.indeterminate());
+
+            if (outcome.attempts() > 1)
+                logger.info("{} attempt(s); {} operation(s) retried; {} saved from full-batch replay; {} already landed; {} failed",
+                        outcome.attempts(),
+                        outcome.retried(),
+                        outcome.saved(),
+                        outcome.landed(),
+                        outcome.failed());
+        }
+    }
 }
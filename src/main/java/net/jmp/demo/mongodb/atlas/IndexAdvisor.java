@@ -0,0 +1,266 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)IndexAdvisor.java 0.27.0  10/17/2026
+ * (#)IndexAdvisor.java 0.26.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.27.0
+ * @since     0.26.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoCollection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Explains a registered set of query shapes and proposes an
+ * index for each whose winning plan scans the collection or
+ * sorts in memory. The proposed key follows the equality,
+ * sort, range rule: fields compared for equality first, then
+ * the sort fields in their sort direction, then the fields
+ * compared by range. Operators that no index can serve, such
+ * as $size and $or, are left out of the key. When creation
+ * is enabled the indexes are built and every shape is
+ * explained again so that the documents examined and
+ * returned can be compared before and after.
+ */
+final class IndexAdvisor {
+    private static final Set<String> EQUALITY_OPERATORS = Set.of("$eq", "$in", "$elemMatch", "$all");
+    private static final Set<String> RANGE_OPERATORS = Set.of("$gt", "$gte", "$lt", "$lte", "$ne", "$nin", "$regex", "$exists", "$type");
+    private static final Set<String> FLAGGED_STAGES = Set.of("COLLSCAN", "SORT");
+
+    /**
+     * The figures read from one explain.
+     *
+     * @param   stages          java.util.List&lt;java.lang.String&gt;  The winning plan's stages, outermost first
+     * @param   keysExamined    long
+     * @param   docsExamined    long
+     * @param   nReturned       long
+     * @param   millis          long
+     */
+    record Plan(List<String> stages, long keysExamined, long docsExamined, long nReturned, long millis) {
+        boolean isFlagged() {
+            return this.stages.stream().anyMatch(FLAGGED_STAGES::contains);
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final boolean createIndexes;
+    private final List<PlanShape> shapes = new ArrayList<>();
+
+    IndexAdvisor(final MongoCollection<Document> collection, final boolean createIndexes) {
+        super();
+
+        this.collection = collection;
+        this.createIndexes = createIndexes;
+    }
+
+    /**
+     * Register query shapes.
+     *
+     * @param   shapes  java.util.List&lt;net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     * @return          net.jmp.demo.mongodb.atlas.IndexAdvisor
+     */
+    IndexAdvisor register(final List<PlanShape> shapes) {
+        this.shapes.addAll(shapes);
+
+        return this;
+    }
+
+    /**
+     * Explain every shape, propose indexes for the flagged
+     * ones and, when enabled, create them and explain again.
+     *
+     * @return  java.util.List&lt;java.lang.String&gt;  The names of the indexes created
+     */
+    List<String> advise() {
+        this.logger.entry();
+
+        final Map<PlanShape, Plan> before = new LinkedHashMap<>();
+        final Map<BsonDocument, List<String>> proposals = new LinkedHashMap<>();
+
+        for (final var shape : this.shapes) {
+            final var plan = this.explain(shape);
+
+            before.put(shape, plan);
+
+            this.logger.info("{}: {}; docsExamined {}; nReturned {}", shape.name(), plan.stages(), plan.docsExamined(), plan.nReturned());
+
+            if (plan.isFlagged()) {
+                final var keys = this.proposeKeys(shape);
+
+                if (keys.isEmpty()) {
+                    this.logger.info("{}: no indexable fields", shape.name());
+                } else {
+                    this.logger.info("{}: proposed index {}", shape.name(), keys.toJson());
+
+                    proposals.computeIfAbsent(keys, k -> new ArrayList<>()).add(shape.name());
+                }
+            }
+        }
+
+        final List<String> created = new ArrayList<>();
+
+        if (this.createIndexes && !proposals.isEmpty()) {
+            for (final var keys : proposals.keySet()) {
+                try {
+                    created.add(this.collection.createIndex(keys));
+                } catch (final MongoException me) {
+                    this.logger.catching(me);
+                }
+            }
+
+            before.forEach((shape, plan) -> this.report(shape, plan, this.explain(shape)));
+        }
+
+        this.logger.exit(created);
+
+        return created;
+    }
+
+    /**
+     * Build the equality, sort, range key for a shape. Only
+     * the leading $match of an aggregation is considered.
+     *
+     * @param   shape   net.jmp.demo.mongodb.atlas.PlanShape
+     * @return          org.bson.BsonDocument   Empty when no field can be indexed
+     */
+    BsonDocument proposeKeys(final PlanShape shape) {
+        final Set<String> equality = new LinkedHashSet<>();
+        final Set<String> range = new LinkedHashSet<>();
+
+        if (!shape.isAggregation()) {
+            this.classify(shape.filter().toBsonDocument(), equality, range);
+        } else if (!shape.pipeline().isEmpty()) {
+            final var first = shape.pipeline().getFirst().toBsonDocument();
+
+            if (first.isDocument("$match"))
+                this.classify(first.getDocument("$match"), equality, range);
+        }
+
+        final var keys = new BsonDocument();
+
+        for (final var field : equality)
+            keys.append(field, new BsonInt32(1));
+
+        if (shape.sort() != null) {
+            for (final var entry : shape.sort().toBsonDocument().entrySet())
+                if (!keys.containsKey(entry.getKey()))
+                    keys.append(entry.getKey(), new BsonInt32(entry.getValue().asNumber().intValue()));
+        }
+
+        for (final var field : range)
+            if (!keys.containsKey(field))
+                keys.append(field, new BsonInt32(1));
+
+        return keys;
+    }
+
+    private void classify(final BsonDocument filter, final Set<String> equality, final Set<String> range) {
+        for (final var entry : filter.entrySet()) {
+            final var field = entry.getKey();
+            final var value = entry.getValue();
+
+            if ("$and".equals(field)) {
+                for (final var clause : value.asArray())
+                    this.classify(clause.asDocument(), equality, range);
+            } else if (!field.startsWith("$")) {
+                this.classifyField(field, value, equality, range);
+            }
+        }
+    }
+
+    private void classifyField(final String field, final BsonValue value, final Set<String> equality, final Set<String> range) {
+        if (!this.isOperatorDocument(value)) {
+            equality.add(field);
+
+            return;
+        }
+
+        for (final var operator : value.asDocument().keySet()) {
+            if (EQUALITY_OPERATORS.contains(operator))
+                equality.add(field);
+            else if (RANGE_OPERATORS.contains(operator))
+                range.add(field);
+        }
+    }
+
+    private boolean isOperatorDocument(final BsonValue value) {
+        return value.isDocument()
+                && !value.asDocument().isEmpty()
+                && value.asDocument().getFirstKey().startsWith("$");
+    }
+
+    private Plan explain(final PlanShape shape) {
+        final var explanation = shape.explain(this.collection);
+        final var queryPlanner = PlanShape.section(explanation, "queryPlanner");
+        final var stats = Objects.requireNonNullElseGet(PlanShape.section(explanation, "executionStats"), Document::new);
+        final List<String> stages = new ArrayList<>();
+
+        if (queryPlanner != null)
+            this.collectStages(queryPlanner.get("winningPlan"), stages);
+
+        return new Plan(stages,
+                this.getLong(stats, "totalKeysExamined"),
+                this.getLong(stats, "totalDocsExamined"),
+                this.getLong(stats, "nReturned"),
+                this.getLong(stats, "executionTimeMillis"));
+    }
+
+    /* Plans nest their input stages; newer servers wrap them in a queryPlan */
+
+    private void collectStages(final Object node, final List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage)
+                stages.add(stage);
+
+            for (final var value : document.values())
+                this.collectStages(value, stages);
+        } else if (node instanceof List<?> list) {
+            for (final var value : list)
+                this.collectStages(value, stages);
+        }
+    }
+
+    private long getLong(final Document document, final String key) {
+        return document.get(key) instanceof Number number ? number.longValue() : 0;
+    }
+
+    private void report(final PlanShape shape, final Plan before, final Plan after) {
+        if (this.logger.isInfoEnabled())
+            this.logger.info("{}: {} -> {}; docsExamined {} -> {}; keysExamined {} -> {}; nReturned {} -> {}; {} ms -> {} ms",
+                    shape.name(),
+                    before.stages(),
+                    after.stages(),
+                    before.docsExamined(),
+                    after.docsExamined(),
+                    before.keysExamined(),
+                    after.keysExamined(),
+                    before.nReturned(),
+                    after.nReturned(),
+                    before.millis(),
+                    after.millis());
+    }
+}
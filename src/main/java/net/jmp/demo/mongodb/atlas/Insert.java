@@ -1,27 +1,28 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Insert.java   0.23.0  10/17/2026
+ * (#)Insert.java   0.21.0  10/17/2026
  * (#)Insert.java   0.8.0   12/06/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.8.0
+ * @version   0.23.0
  * @since     0.8.0
  */
 
-import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoException;
 
 import com.mongodb.client.MongoClient;
 
+import com.mongodb.client.model.InsertManyOptions;
+
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 
-import org.bson.Document;
-
 import org.bson.types.ObjectId;
 
 import org.slf4j.LoggerFactory;
@@ -33,6 +34,7 @@ final class Insert {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final BulkRetry retry;
 
     Insert(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -41,6 +43,7 @@ final class Insert {
 
         this.dbName = properties.getProperty("mongodb.insert.db", "training");
         this.collectionName = properties.getProperty("mongodb.insert.collection", "colors");
+        this.retry = BulkRetry.fromProperties(properties);
     }
 
     void run() {
@@ -63,19 +66,15 @@ final class Insert {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var document = new Document("color", "red").append("qty", 5);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Color.class);
+        final var document = new Color("red", 5);
 
         try {
             var result = collection.insertOne(document);
 
             this.logger.info("Inserted document: {}", Objects.requireNonNull(result.getInsertedId()).asObjectId().getValue());
 
-            result = collection.insertOne(new Document()
-                    .append("_id", new ObjectId())
-                    .append("color", "orange")
-                    .append("qty", 6)
-            );
+            result = collection.insertOne(new Color(new ObjectId(), "orange", 6));
 
             this.logger.info("Inserted document: {}", Objects.requireNonNull(result.getInsertedId()).asObjectId().getValue());
         } catch (final MongoException me) {
@@ -88,28 +87,25 @@ final class Insert {
     private void insertMultipleDocuments() {
         this.logger.entry();
 
-        final var color = "color";
-        final var quantity = "qty";
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = RecordCodecs.getCollection(database, this.collectionName, Color.class);
 
         final var documents = List.of(
-                new Document(color, "blue").append(quantity, 5),
-                new Document(color, "purple").append(quantity, 8),
-                new Document(color, "green").append(quantity, 9),
-                new Document(color, "yellow").append(quantity, 5)
+                new Color("blue", 5),
+                new Color("purple", 8),
+                new Color("green", 9),
+                new Color("yellow", 5)
         );
 
         try {
-            final var result = collection.insertMany(documents);
+            final var outcome = this.retry.insertMany(collection, documents, new InsertManyOptions());
 
-            result.getInsertedIds().values()
+            outcome.insertedIds()
                     .forEach(id -> this.logger.info("Inserted document: {}", id.asObjectId().getValue()));
-        } catch (final MongoBulkWriteException mbwe) {
-            this.logger.catching(mbwe);
 
-            mbwe.getWriteResult().getInserts()
-                    .forEach(doc -> this.logger.info("Inserted document: {}", doc.getId().asObjectId().getValue()));
+            Helpers.printRetryOutcome(outcome, this.logger);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
         }
 
         this.logger.exit();
@@ -0,0 +1,49 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)JsonDocumentSink.java 0.15.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.15.0
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+
+import org.bson.json.JsonWriter;
+
+/**
+ * Writes each document as one line of relaxed extended
+ * JSON, piped directly from the raw BSON bytes into the
+ * (ideally buffered) writer without decoding a Document.
+ */
+final class JsonDocumentSink implements DocumentSink {
+    private final Writer writer;
+
+    JsonDocumentSink(final Writer writer) {
+        super();
+
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(final RawBsonDocument document) throws IOException {
+        try (final var reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            new JsonWriter(this.writer, LogDocumentSink.SETTINGS).pipe(reader);
+        }
+
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,57 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)LogDocumentSink.java  0.15.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.15.0
+ * @since     0.15.0
+ */
+
+import java.io.StringWriter;
+
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Logs each document as relaxed extended JSON, the same
+ * text Document.toJson() produces. The raw bytes are piped
+ * straight into a JsonWriter over one reused buffer, so no
+ * intermediate Document tree is built. A JsonWriter cannot
+ * start a second top-level document, so only the writer,
+ * a thin wrapper, is created per document.
+ */
+final class LogDocumentSink implements DocumentSink {
+    static final JsonWriterSettings SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private final StringWriter buffer = new StringWriter(512);
+    private final XLogger logger;
+
+    LogDocumentSink(final XLogger logger) {
+        super();
+
+        this.logger = logger;
+    }
+
+    @Override
+    public void write(final RawBsonDocument document) {
+        if (this.logger.isInfoEnabled()) {
+            this.buffer.getBuffer().setLength(0);
+
+            try (final var reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+                new JsonWriter(this.buffer, SETTINGS).pipe(reader);
+            }
+
+            this.logger.info(this.buffer.toString());
+        }
+    }
+}
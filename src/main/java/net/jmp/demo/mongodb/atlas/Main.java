@@ -1,6 +1,11 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Main.java 0.20.0  10/17/2026
+ * (#)Main.java 0.19.0  10/17/2026
+ * (#)Main.java 0.18.0  10/17/2026
+ * (#)Main.java 0.14.0  10/17/2026
+ * (#)Main.java 0.12.0  10/17/2026
  * (#)Main.java 0.10.0  12/09/2023
  * (#)Main.java 0.9.0   12/07/2023
  * (#)Main.java 0.8.0   12/06/2023
@@ -9,18 +14,31 @@ package net.jmp.demo.mongodb.atlas;
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.10.0
+ * @version   0.20.0
  * @since     0.8.0
  */
 
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 
-import java.util.Optional;
-import java.util.Properties;
+import java.lang.management.ManagementFactory;
+
+import java.util.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
 
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +47,40 @@ import org.slf4j.ext.XLogger;
 public final class Main {
     private static final String MONGODB_URI = "mongodb.uri";
 
+    /*
+     * A demonstration module. The property prefix names the
+     * db and collection keys it reads. When the modules run
+     * concurrently, modules of one group run one after another
+     * in list order on the same thread, and a group that
+     * writes is isolated by giving it its own collection.
+     * Update and delete work on the colors that insert (and an
+     * import) leave behind, so the four form one group.
+     */
+
+    private record Module<C>(String name, String group, String prefix, boolean writes, BiFunction<Properties, C, Runnable> factory) {}
+
+    private static final List<Module<MongoClient>> MODULES = List.of(
+            new Module<>("find", "find", "mongodb.find", false, (p, c) -> new Find(p, c)::run),
+            new Module<>("insert", "colors", "mongodb.insert", true, (p, c) -> new Insert(p, c)::run),
+            new Module<>("import", "colors", "mongodb.insert", true, (p, c) -> new BulkImport(p, c)::run),
+            new Module<>("update", "colors", "mongodb.update", true, (p, c) -> new UpdateAndReplace(p, c)::run),
+            new Module<>("delete", "colors", "mongodb.insert", true, (p, c) -> new Delete(p, c)::run),
+            new Module<>("arrays", "arrays", "mongodb.update", true, (p, c) -> new UpdateArrays(p, c)::run),
+            new Module<>("upsert", "upsert", "mongodb.upsert", true, (p, c) -> new Upsert(p, c)::run),
+            new Module<>("bulk", "bulk", "mongodb.bulk", true, (p, c) -> new Bulk(p, c)::run),
+            new Module<>("query", "query", "mongodb.query", true, (p, c) -> new Query(p, c)::run),
+            new Module<>("compound", "compound", "mongodb.compound", true, (p, c) -> new Compound(p, c)::run),
+            new Module<>("aggregation", "aggregation", "mongodb.aggregation", true, (p, c) -> new Aggregation(p, c)::run)
+    );
+
+    /* The workloads that also have a reactive streams implementation */
+
+    private static final List<Module<com.mongodb.reactivestreams.client.MongoClient>> REACTIVE_MODULES = List.of(
+            new Module<>("find", "find", "mongodb.find", false, (p, c) -> new ReactiveFind(p, c)::run),
+            new Module<>("insert", "insert", "mongodb.insert", true, (p, c) -> new ReactiveInsert(p, c)::run),
+            new Module<>("bulk", "bulk", "mongodb.bulk", true, (p, c) -> new ReactiveBulk(p, c)::run)
+    );
+
     private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
 
     private Main() {
@@ -46,17 +98,21 @@ public final class Main {
 
             this.logger.info("Connecting to {}", mongoDbUri);
 
-            try (final var mongoClient = MongoClients.create(mongoDbUri)) {
-                new Find(props, mongoClient).run();
-                new Insert(props, mongoClient).run();
-                new UpdateAndReplace(props, mongoClient).run();
-                new Delete(props, mongoClient).run();
-                new UpdateArrays(props, mongoClient).run();
-                new Upsert(props, mongoClient).run();
-                new Bulk(props, mongoClient).run();
-                new Query(props, mongoClient).run();
-                new Compound(props, mongoClient).run();
-                new Aggregation(props, mongoClient).run();
+            final var commandMetrics = Boolean.parseBoolean(props.getProperty("mongodb.metrics.enabled", "false"))
+                    ? new CommandMetrics(props)
+                    : null;
+
+            final var poolMetrics = Boolean.parseBoolean(props.getProperty("mongodb.pool.metrics", "false"))
+                    ? new PoolMetrics(props)
+                    : null;
+
+            final var settings = this.getClientSettings(props, commandMetrics, poolMetrics);
+
+            try (commandMetrics; poolMetrics) {
+                if ("reactive".equalsIgnoreCase(props.getProperty("mongodb.driver.mode", "sync")))
+                    this.runReactive(props, settings);
+                else
+                    this.runSync(props, settings);
             } finally {
                 this.logger.info("Disconnected from {}", mongoDbUri);
             }
@@ -66,6 +122,249 @@ public final class Main {
         this.logger.exit();
     }
 
+    /*
+     * Build the client settings from the URI and then apply
+     * the mongodb.pool.* and mongodb.socket.* keys that are
+     * set; keys left blank keep the URI or driver defaults.
+     */
+
+    private MongoClientSettings getClientSettings(final Properties properties,
+                                                  final CommandMetrics commandMetrics,
+                                                  final PoolMetrics poolMetrics) {
+        this.logger.entry(properties, commandMetrics, poolMetrics);
+
+        final var builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(properties.getProperty(MONGODB_URI)));
+
+        builder.applyToConnectionPoolSettings(pool -> {
+            this.ifSet(properties, "mongodb.pool.minSize", value -> pool.minSize((int) value));
+            this.ifSet(properties, "mongodb.pool.maxSize", value -> pool.maxSize((int) value));
+            this.ifSet(properties, "mongodb.pool.maxConnecting", value -> pool.maxConnecting((int) value));
+            this.ifSet(properties, "mongodb.pool.maxIdleTimeMillis", value -> pool.maxConnectionIdleTime(value, TimeUnit.MILLISECONDS));
+            this.ifSet(properties, "mongodb.pool.maxLifeTimeMillis", value -> pool.maxConnectionLifeTime(value, TimeUnit.MILLISECONDS));
+            this.ifSet(properties, "mongodb.pool.maxWaitTimeMillis", value -> pool.maxWaitTime(value, TimeUnit.MILLISECONDS));
+
+            if (poolMetrics != null)
+                pool.addConnectionPoolListener(poolMetrics);
+        });
+
+        builder.applyToSocketSettings(socket -> {
+            this.ifSet(properties, "mongodb.socket.connectTimeoutMillis", value -> socket.connectTimeout((int) value, TimeUnit.MILLISECONDS));
+            this.ifSet(properties, "mongodb.socket.readTimeoutMillis", value -> socket.readTimeout((int) value, TimeUnit.MILLISECONDS));
+        });
+
+        if (commandMetrics != null)
+            builder.addCommandListener(commandMetrics);
+
+        final var settings = builder.build();
+
+        this.logger.exit(settings);
+
+        return settings;
+    }
+
+    private void ifSet(final Properties properties, final String key, final LongConsumer setter) {
+        final var value = properties.getProperty(key, "");
+
+        if (!value.isBlank())
+            setter.accept(Long.parseLong(value.trim()));
+    }
+
+    private void runSync(final Properties properties, final MongoClientSettings settings) {
+        this.logger.entry(properties, settings);
+
+        try (final var mongoClient = MongoClients.create(settings)) {
+            if ("concurrent".equalsIgnoreCase(properties.getProperty("mongodb.main.mode", "sequential")))
+                this.runConcurrently(properties, mongoClient);
+            else
+                this.runSequentially(MODULES, properties, mongoClient);
+        }
+
+        this.logger.exit();
+    }
+
+    /*
+     * Run the workloads that have a reactive streams version
+     * one after another on a reactive client built from the
+     * same settings, so that their threads, heap and times
+     * can be compared with a sequential run of the sync ones.
+     */
+
+    private void runReactive(final Properties properties, final MongoClientSettings settings) {
+        this.logger.entry(properties, settings);
+
+        try (final var mongoClient = com.mongodb.reactivestreams.client.MongoClients.create(settings)) {
+            this.runSequentially(REACTIVE_MODULES, properties, mongoClient);
+        }
+
+        this.logger.exit();
+    }
+
+    private <C> void runSequentially(final List<Module<C>> modules, final Properties properties, final C mongoClient) {
+        this.logger.entry(modules, properties, mongoClient);
+
+        final var threads = ManagementFactory.getThreadMXBean();
+        final var memory = ManagementFactory.getMemoryMXBean();
+        final var startNanos = System.nanoTime();
+
+        for (final var module : modules) {
+            threads.resetPeakThreadCount();
+
+            this.runModule(module, properties, mongoClient);
+
+            if (this.logger.isInfoEnabled())
+                this.logger.info("Module {} peak threads: {}; heap used: {} MB",
+                        module.name(),
+                        threads.getPeakThreadCount(),
+                        memory.getHeapMemoryUsage().getUsed() / (1024 * 1024));
+        }
+
+        this.logger.info("Sequential run took {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        this.logger.exit();
+    }
+
+    /*
+     * Run every group of modules on its own virtual thread.
+     * Groups that write get a copy of the properties naming a
+     * collection suffixed with the group name and a run
+     * identifier, and those collections are dropped afterwards. The speedup is
+     * reported against a measured sequential pass over the same
+     * isolated modules when mongodb.main.baseline is true, or
+     * else against the sum of the module wall-clock times.
+     */
+
+    private void runConcurrently(final Properties properties, final MongoClient mongoClient) {
+        this.logger.entry(properties, mongoClient);
+
+        long baselineNanos = 0;
+
+        if (Boolean.parseBoolean(properties.getProperty("mongodb.main.baseline", "false"))) {
+            final var isolated = this.isolate(properties, Long.toString(System.currentTimeMillis(), 36));
+            final var startNanos = System.nanoTime();
+
+            try {
+                for (final var module : MODULES)
+                    this.runModule(module, isolated.get(module), mongoClient);
+            } finally {
+                baselineNanos = System.nanoTime() - startNanos;
+
+                this.dropIsolated(isolated, mongoClient);
+            }
+
+            this.logger.info("Sequential baseline took {} ms", TimeUnit.NANOSECONDS.toMillis(baselineNanos));
+        }
+
+        final var isolated = this.isolate(properties, Long.toString(System.currentTimeMillis(), 36));
+        final Map<String, List<Module<MongoClient>>> groups = new LinkedHashMap<>();
+
+        for (final var module : MODULES)
+            groups.computeIfAbsent(module.group(), group -> new ArrayList<>()).add(module);
+
+        final var startNanos = System.nanoTime();
+        final List<Future<Long>> futures = new ArrayList<>(groups.size());
+
+        try {
+            try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (final var group : groups.values())
+                    futures.add(executor.submit(() -> {
+                        long groupNanos = 0;
+
+                        for (final var module : group)
+                            groupNanos += this.runModule(module, isolated.get(module), mongoClient);
+
+                        return groupNanos;
+                    }));
+            }
+
+            final var wallNanos = System.nanoTime() - startNanos;
+
+            long moduleNanos = 0;
+
+            for (final var future : futures)
+                moduleNanos += future.resultNow();
+
+            if (baselineNanos == 0)
+                baselineNanos = moduleNanos;
+
+            if (this.logger.isInfoEnabled())
+                this.logger.info("Concurrent run took {} ms; sequential baseline {} ms; speedup {}x",
+                        TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                        TimeUnit.NANOSECONDS.toMillis(baselineNanos),
+                        String.format("%.2f", (double) baselineNanos / wallNanos));
+        } finally {
+            this.dropIsolated(isolated, mongoClient);
+        }
+
+        this.logger.exit();
+    }
+
+    private <C> long runModule(final Module<C> module, final Properties properties, final C mongoClient) {
+        final var startNanos = System.nanoTime();
+
+        try {
+            module.factory().apply(properties, mongoClient).run();
+        } catch (final RuntimeException re) {
+            this.logger.catching(re);
+        }
+
+        final var elapsedNanos = System.nanoTime() - startNanos;
+
+        this.logger.info("Module {} took {} ms", module.name(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        return elapsedNanos;
+    }
+
+    /* The modules of a group share the db and isolated collection of its first module */
+
+    private Map<Module<MongoClient>, Properties> isolate(final Properties properties, final String runId) {
+        this.logger.entry(properties, runId);
+
+        final Map<Module<MongoClient>, Properties> isolated = new LinkedHashMap<>();
+        final Map<String, Module<MongoClient>> firsts = new HashMap<>();
+
+        for (final var module : MODULES) {
+            final var copy = new Properties();
+
+            copy.putAll(properties);
+
+            if (module.writes()) {
+                final var first = firsts.computeIfAbsent(module.group(), group -> module);
+                final var dbName = properties.getProperty(first.prefix() + ".db");
+
+                if (dbName != null)
+                    copy.setProperty(module.prefix() + ".db", dbName);
+
+                copy.setProperty(module.prefix() + ".collection",
+                        properties.getProperty(first.prefix() + ".collection") + "_" + module.group() + "_" + runId);
+            }
+
+            isolated.put(module, copy);
+        }
+
+        this.logger.exit(isolated);
+
+        return isolated;
+    }
+
+    private void dropIsolated(final Map<Module<MongoClient>, Properties> isolated, final MongoClient mongoClient) {
+        this.logger.entry(isolated, mongoClient);
+
+        isolated.forEach((module, properties) -> {
+            if (module.writes()) {
+                final var dbName = properties.getProperty(module.prefix() + ".db");
+                final var collectionName = properties.getProperty(module.prefix() + ".collection");
+
+                try {
+                    mongoClient.getDatabase(dbName).getCollection(collectionName).drop();
+                } catch (final MongoException me) {
+                    this.logger.catching(me);
+                }
+            }
+        });
+
+        this.logger.exit();
+    }
+
     private Optional<Properties> getAppProperties() {
         this.logger.entry();
 
@@ -0,0 +1,271 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)MaterializedView.java 0.32.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.32.0
+ * @since     0.32.0
+ */
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import org.bson.types.ObjectId;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * A summary collection kept up to date with $merge. The view
+ * groups the source documents by one field, unwinding it
+ * first when it is an array, and readers query the summary
+ * instead of grouping the source.
+ *
+ * <p>A refresh processes only the source documents whose mark
+ * field falls in a window ending at the current maximum mark.
+ * It collects the group keys those documents touch and
+ * regroups just those keys, merging the new groups over the
+ * old ones, so its cost follows the changed groups rather
+ * than the whole source when the grouped field is indexed.
+ *
+ * <p>Writers can commit out of mark order: a document stamped
+ * in the same millisecond as the stored mark, or stamped just
+ * before it by a slower writer, can commit after the mark was
+ * read. The window therefore starts a lag before the stored
+ * mark rather than just above it, and the documents in that
+ * trailing window are regrouped again by the next refresh.
+ * Regrouping is idempotent, so this costs only time. A
+ * document that commits later than the lag after its mark is
+ * still missed; the lag should exceed the longest write.
+ *
+ * <p>The mark should be an update timestamp that the server
+ * sets on every insert and update, with $currentDate or
+ * $$NOW, so that one clock orders the writes. An ObjectId
+ * _id mark is lagged by its embedded seconds, but since
+ * ObjectIds are generated by the clients it is only safe
+ * with a single writer. Marks of other types get no lag.
+ *
+ * <p>Deleted documents, and the groups a document was moved
+ * out of by an update, are not seen through the mark; a
+ * rebuild recomputes every group.
+ */
+final class MaterializedView {
+    /**
+     * The results of one refresh.
+     *
+     * @param   changed     long    Source documents in the refresh window
+     * @param   groups      int     Groups recomputed
+     * @param   millis      long
+     * @param   rebuilt     boolean True if every group was recomputed
+     */
+    record Refresh(long changed, int groups, long millis, boolean rebuilt) {}
+
+    private static final String MARK = "mark";
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final String name;
+    private final MongoCollection<Document> source;
+    private final MongoCollection<Document> target;
+    private final MongoCollection<Document> marks;
+    private final String groupField;
+    private final boolean unwind;
+    private final List<BsonField> accumulators;
+    private final String markField;
+    private final long lagMillis;
+
+    /**
+     * Define a view.
+     *
+     * @param   name            java.lang.String    The view's key in the marks collection
+     * @param   source          com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   target          com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;   The summary collection
+     * @param   marks           com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;   Where the high-water marks are kept
+     * @param   groupField      java.lang.String    The field grouped on; each group's _id is its value
+     * @param   unwind          boolean             True if the field is an array whose elements are grouped on
+     * @param   accumulators    java.util.List&lt;com.mongodb.client.model.BsonField&gt;
+     * @param   markField       java.lang.String    An ever increasing field, such as a server-set update timestamp
+     * @param   lagMillis       long                How far before the stored mark each refresh starts
+     */
+    MaterializedView(final String name,
+                     final MongoCollection<Document> source,
+                     final MongoCollection<Document> target,
+                     final MongoCollection<Document> marks,
+                     final String groupField,
+                     final boolean unwind,
+                     final List<BsonField> accumulators,
+                     final String markField,
+                     final long lagMillis) {
+        super();
+
+        this.name = name;
+        this.source = source;
+        this.target = target;
+        this.marks = marks;
+        this.groupField = groupField;
+        this.unwind = unwind;
+        this.accumulators = accumulators;
+        this.markField = markField;
+        this.lagMillis = lagMillis;
+    }
+
+    /**
+     * Bring the view up to date, rebuilding it if it has
+     * never been refreshed.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.MaterializedView.Refresh
+     */
+    Refresh refresh() {
+        this.logger.entry();
+
+        final var marked = this.marks.find(Filters.eq("_id", this.name)).first();
+        final Refresh refresh;
+
+        if (marked == null) {
+            refresh = this.rebuild();
+        } else {
+            final var startNanos = System.nanoTime();
+            final var previous = marked.get(MARK);
+            final var current = this.currentMark();
+
+            if (current == null || previous == null) {
+                refresh = this.rebuild();
+            } else {
+                final var changes = Filters.and(this.after(previous), Filters.lte(this.markField, current));
+                final var changed = this.source.countDocuments(changes);
+                final List<Object> keys = changed == 0
+                        ? List.of()
+                        : this.source.distinct(this.groupField, changes, Object.class).into(new ArrayList<>());
+
+                if (!keys.isEmpty())
+                    this.source.aggregate(this.pipeline(Filters.in(this.groupField, keys))).toCollection();
+
+                this.saveMark(current);
+
+                refresh = new Refresh(changed, keys.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), false);
+            }
+        }
+
+        this.logger.exit(refresh);
+
+        return refresh;
+    }
+
+    /**
+     * Recompute every group, replacing the summary.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.MaterializedView.Refresh
+     */
+    Refresh rebuild() {
+        this.logger.entry();
+
+        final var startNanos = System.nanoTime();
+        final var current = this.currentMark();
+
+        this.target.drop();
+        this.source.aggregate(this.pipeline(null)).toCollection();
+        this.saveMark(current);
+
+        final var refresh = new Refresh(this.source.countDocuments(),
+                (int) this.target.countDocuments(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                true);
+
+        this.logger.exit(refresh);
+
+        return refresh;
+    }
+
+    /**
+     * Read the summary in group order.
+     *
+     * @param   filter  org.bson.conversions.Bson
+     * @return          java.util.List&lt;org.bson.Document&gt;
+     */
+    List<Document> read(final Bson filter) {
+        return this.target.find(filter).sort(Sorts.ascending("_id")).into(new ArrayList<>());
+    }
+
+    /**
+     * Remove the summary and the view's mark.
+     */
+    void drop() {
+        this.target.drop();
+        this.marks.deleteOne(Filters.eq("_id", this.name));
+    }
+
+    /*
+     * Group the source, or only the given keys of it, and
+     * merge the groups over the summary. The key filter is
+     * applied again after unwinding, so that the other
+     * elements of a matched array leave their groups alone.
+     */
+
+    private List<Bson> pipeline(final Bson keys) {
+        final List<Bson> pipeline = new ArrayList<>();
+
+        if (keys != null)
+            pipeline.add(Aggregates.match(keys));
+
+        if (this.unwind) {
+            pipeline.add(Aggregates.unwind("$" + this.groupField));
+
+            if (keys != null)
+                pipeline.add(Aggregates.match(keys));
+        }
+
+        pipeline.add(Aggregates.group("$" + this.groupField, this.accumulators));
+        pipeline.add(Aggregates.merge(this.target.getNamespace(),
+                new MergeOptions()
+                        .whenMatched(MergeOptions.WhenMatched.REPLACE)
+                        .whenNotMatched(MergeOptions.WhenNotMatched.INSERT)));
+
+        return pipeline;
+    }
+
+    /* The start of the refresh window: a lag before a date or ObjectId mark, just above any other */
+
+    private Bson after(final Object previous) {
+        if (previous instanceof Date date)
+            return Filters.gte(this.markField, new Date(date.getTime() - this.lagMillis));
+
+        if (previous instanceof ObjectId objectId) {
+            final var seconds = Math.max(objectId.getTimestamp() - (this.lagMillis + 999) / 1000, 0);
+
+            return Filters.gte(this.markField, new ObjectId(String.format("%08x%016x", seconds, 0)));    // The smallest ObjectId of that second
+        }
+
+        return Filters.gt(this.markField, previous);
+    }
+
+    private Object currentMark() {
+        final var last = this.source.find()
+                .projection(Projections.include(this.markField))
+                .sort(Sorts.descending(this.markField))
+                .limit(1)
+                .first();
+
+        return last == null ? null : last.get(this.markField);
+    }
+
+    private void saveMark(final Object mark) {
+        this.marks.replaceOne(Filters.eq("_id", this.name),
+                new Document("_id", this.name).append(MARK, mark),
+                new ReplaceOptions().upsert(true));
+    }
+}
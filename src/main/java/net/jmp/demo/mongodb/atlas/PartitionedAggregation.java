@@ -0,0 +1,417 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PartitionedAggregation.java   0.34.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.34.0
+ * @since     0.34.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.Filters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.Set;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Groups a large collection as several smaller aggregations,
+ * one per key range of a PartitionedScan, run in parallel on
+ * virtual threads. Each runs with allowDiskUse, so a $group
+ * past the server's stage memory limit spills to disk rather
+ * than failing, and with a tuned cursor batch size.
+ *
+ * <p>The partial groups of a partition are folded into a map
+ * of group key to a double array as they stream in, and every
+ * partition's map is kept until they are all combined pairwise
+ * by a fork-join task. The client therefore holds up to one
+ * entry per group per partition, groups times partitions,
+ * however many documents there are. Only measures
+ * that can be combined from partials are supported: sums,
+ * minimums, maximums and averages, the last carried as a sum
+ * and a count. Sums are kept as doubles and are exact up to
+ * 2^53. Minimums and maximums must be numeric: a constant
+ * that is not a number is rejected up front, and a partial
+ * minimum or maximum of any other type, such as a date or a
+ * string, fails the aggregation rather than being dropped.
+ */
+final class PartitionedAggregation {
+    enum Operator {
+        SUM,
+        MIN,
+        MAX,
+        AVG
+    }
+
+    /**
+     * One output field of the groups.
+     *
+     * @param   name        java.lang.String
+     * @param   operator    net.jmp.demo.mongodb.atlas.PartitionedAggregation.Operator
+     * @param   expression  java.lang.Object    A field path such as "$stars", or a constant such as 1
+     */
+    record Measure(String name, Operator operator, Object expression) {}
+
+    /**
+     * The merged groups and what it took to get them.
+     *
+     * @param   groups          java.util.List&lt;org.bson.Document&gt;
+     * @param   partitions      int
+     * @param   partialGroups   long    Groups returned by all the partitions together
+     * @param   millis          long
+     */
+    record Result(List<Document> groups, int partitions, long partialGroups, long millis) {}
+
+    private static final String SUM_SUFFIX = "_sum";
+    private static final String COUNT_SUFFIX = "_count";
+    private static final Set<String> OPERATORS = Set.of("$sum", "$min", "$max", "$avg");
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final PartitionedScan scan;
+    private final int batchSize;
+
+    /**
+     * Create an aggregation over the ranges of the scan.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   scan        net.jmp.demo.mongodb.atlas.PartitionedScan  Supplies the key ranges
+     * @param   batchSize   int     Partial groups per cursor batch
+     */
+    PartitionedAggregation(final MongoCollection<Document> collection, final PartitionedScan scan, final int batchSize) {
+        super();
+
+        this.collection = collection;
+        this.scan = scan;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Group the documents as the pipeline does. The pipeline's
+     * leading $match stages become the filter, the stages
+     * after them are run as they are, and it must end in a
+     * $group whose accumulators are all $sum, $min, $max or
+     * $avg.
+     *
+     * @param   pipeline    java.util.List&lt;? extends org.bson.conversions.Bson&gt;
+     * @return              net.jmp.demo.mongodb.atlas.PartitionedAggregation.Result
+     */
+    Result aggregate(final List<? extends Bson> pipeline) {
+        if (pipeline.isEmpty())
+            throw new IllegalArgumentException("The pipeline must end in a $group");
+
+        final List<Bson> filters = new ArrayList<>();
+        final List<Bson> stages = new ArrayList<>();
+
+        for (final var stage : pipeline.subList(0, pipeline.size() - 1)) {
+            final var document = stage.toBsonDocument();
+
+            if (stages.isEmpty() && document.size() == 1 && document.isDocument("$match"))
+                filters.add(document.getDocument("$match"));
+            else
+                stages.add(stage);
+        }
+
+        final var last = pipeline.getLast().toBsonDocument();
+
+        if (last.size() != 1 || !last.isDocument("$group"))
+            throw new IllegalArgumentException("The pipeline must end in a $group");
+
+        final var group = last.getDocument("$group");
+        final List<Measure> measures = new ArrayList<>();
+
+        for (final var field : group.entrySet()) {
+            if (!"_id".equals(field.getKey()))
+                measures.add(measure(field.getKey(), field.getValue().isDocument() ? field.getValue().asDocument() : new BsonDocument()));
+        }
+
+        return this.aggregate(filters.isEmpty() ? Filters.empty() : Filters.and(filters), stages, group.get("_id"), measures);
+    }
+
+    private static Measure measure(final String name, final BsonDocument accumulator) {
+        if (accumulator.size() != 1 || !OPERATORS.contains(accumulator.getFirstKey()))
+            throw new IllegalArgumentException("Accumulator " + name + " cannot be combined from partial groups: " + accumulator.toJson());
+
+        final var operator = Operator.valueOf(accumulator.getFirstKey().substring(1).toUpperCase());
+        final var expression = accumulator.get(accumulator.getFirstKey());
+
+        if ((operator == Operator.MIN || operator == Operator.MAX) && !expression.isNumber() && !isFieldPath(expression))
+            throw new IllegalArgumentException("Accumulator " + name + " must be numeric: " + accumulator.toJson());
+
+        return new Measure(name, operator, expression);
+    }
+
+    /**
+     * Group the documents matching the filter.
+     *
+     * @param   filter      org.bson.conversions.Bson
+     * @param   stages      java.util.List&lt;org.bson.conversions.Bson&gt;   Stages to run between the match and the group, such as an $unwind
+     * @param   groupKey    java.lang.Object    The _id expression of the group
+     * @param   measures    java.util.List&lt;net.jmp.demo.mongodb.atlas.PartitionedAggregation.Measure&gt;
+     * @return              net.jmp.demo.mongodb.atlas.PartitionedAggregation.Result
+     */
+    Result aggregate(final Bson filter, final List<Bson> stages, final Object groupKey, final List<Measure> measures) {
+        this.logger.entry(filter, stages, groupKey, measures);
+
+        final var startNanos = System.nanoTime();
+        final var ranges = this.scan.ranges();
+        final List<Future<Map<Object, double[]>>> futures = new ArrayList<>(ranges.size());
+        final List<Map<Object, double[]>> partials = new ArrayList<>(ranges.size());
+
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final var range : ranges)
+                futures.add(executor.submit(() -> this.partial(Filters.and(filter, range), stages, groupKey, measures)));
+
+            for (final var future : futures)
+                partials.add(future.get());
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+
+            throw new MongoException("Interrupted waiting for a partition", ie);
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException re)
+                throw re;
+
+            throw new MongoException("A partition failed", ee.getCause());
+        }
+
+        final var partialGroups = partials.stream().mapToLong(Map::size).sum();
+        final var merged = ForkJoinPool.commonPool().invoke(new Combiner(partials, 0, partials.size(), measures));
+        final List<Document> groups = new ArrayList<>(merged.size());
+
+        merged.forEach((key, slots) -> groups.add(this.toDocument(key, slots, measures)));
+
+        groups.sort(PartitionedAggregation::compareKeys);
+
+        final var result = new Result(groups, ranges.size(), partialGroups, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        this.logger.exit(result);
+
+        return result;
+    }
+
+    /* Run one partition and fold its groups into a map as they arrive */
+
+    private Map<Object, double[]> partial(final Bson filter, final List<Bson> stages, final Object groupKey, final List<Measure> measures) {
+        final List<Bson> pipeline = new ArrayList<>(stages.size() + 2);
+        final List<BsonField> accumulators = new ArrayList<>();
+
+        for (final var measure : measures) {
+            switch (measure.operator()) {
+                case SUM -> accumulators.add(Accumulators.sum(measure.name(), measure.expression()));
+                case MIN -> accumulators.add(Accumulators.min(measure.name(), measure.expression()));
+                case MAX -> accumulators.add(Accumulators.max(measure.name(), measure.expression()));
+                case AVG -> {
+                    accumulators.add(Accumulators.sum(measure.name() + SUM_SUFFIX, measure.expression()));
+                    accumulators.add(Accumulators.sum(measure.name() + COUNT_SUFFIX,
+                            new Document("$cond", List.of(new Document("$isNumber", measure.expression()), 1, 0))));
+                }
+            }
+        }
+
+        pipeline.add(Aggregates.match(filter));
+        pipeline.addAll(stages);
+        pipeline.add(Aggregates.group(groupKey, accumulators));
+
+        final Map<Object, double[]> groups = new HashMap<>();
+
+        for (final var group : this.collection.aggregate(pipeline).allowDiskUse(true).batchSize(this.batchSize)) {
+            final var slots = empty(measures);
+
+            int slot = 0;
+
+            for (final var measure : measures) {
+                if (measure.operator() == Operator.AVG) {
+                    slots[slot++] = number(group.get(measure.name() + SUM_SUFFIX), 0.0);
+                    slots[slot++] = number(group.get(measure.name() + COUNT_SUFFIX), 0.0);
+                } else if (measure.operator() == Operator.SUM) {
+                    slots[slot] = number(group.get(measure.name()), slots[slot]);
+                    slot++;
+                } else {
+                    slots[slot] = extreme(measure.name(), group.get(measure.name()), slots[slot]);
+                    slot++;
+                }
+            }
+
+            groups.merge(group.get("_id"), slots, (left, right) -> combine(left, right, measures));
+        }
+
+        return groups;
+    }
+
+    /**
+     * Combines a run of partition maps by splitting it in two,
+     * combining the halves in parallel and merging the smaller
+     * result into the larger.
+     */
+    @SuppressWarnings("serial")     // Never serialized; the fields are not meant to be
+    private static final class Combiner extends RecursiveTask<Map<Object, double[]>> {
+        private final List<Map<Object, double[]>> partials;
+        private final int from;
+        private final int to;
+        private final List<Measure> measures;
+
+        private Combiner(final List<Map<Object, double[]>> partials, final int from, final int to, final List<Measure> measures) {
+            super();
+
+            this.partials = partials;
+            this.from = from;
+            this.to = to;
+            this.measures = measures;
+        }
+
+        @Override
+        protected Map<Object, double[]> compute() {
+            if (this.to - this.from == 0)
+                return new HashMap<>();
+
+            if (this.to - this.from == 1)
+                return this.partials.get(this.from);
+
+            final var middle = (this.from + this.to) >>> 1;
+            final var left = new Combiner(this.partials, this.from, middle, this.measures);
+            final var right = new Combiner(this.partials, middle, this.to, this.measures);
+
+            left.fork();
+
+            final var rightResult = right.compute();
+            final var leftResult = left.join();
+            final var larger = leftResult.size() >= rightResult.size() ? leftResult : rightResult;
+            final var smaller = larger == leftResult ? rightResult : leftResult;
+
+            smaller.forEach((key, slots) -> larger.merge(key, slots, (a, b) -> combine(a, b, this.measures)));
+
+            return larger;
+        }
+    }
+
+    private static boolean isFieldPath(final BsonValue expression) {
+        return expression.isString() && expression.asString().getValue().startsWith("$");
+    }
+
+    private static double[] empty(final List<Measure> measures) {
+        final List<Double> slots = new ArrayList<>();
+
+        for (final var measure : measures) {
+            switch (measure.operator()) {
+                case SUM -> slots.add(0.0);
+                case MIN -> slots.add(Double.POSITIVE_INFINITY);
+                case MAX -> slots.add(Double.NEGATIVE_INFINITY);
+                case AVG -> {
+                    slots.add(0.0);
+                    slots.add(0.0);
+                }
+            }
+        }
+
+        return slots.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static double[] combine(final double[] left, final double[] right, final List<Measure> measures) {
+        int slot = 0;
+
+        for (final var measure : measures) {
+            switch (measure.operator()) {
+                case SUM -> left[slot] += right[slot];
+                case MIN -> left[slot] = Math.min(left[slot], right[slot]);
+                case MAX -> left[slot] = Math.max(left[slot], right[slot]);
+                case AVG -> {
+                    left[slot] += right[slot];
+                    slot++;
+                    left[slot] += right[slot];
+                }
+            }
+
+            slot++;
+        }
+
+        return left;
+    }
+
+    private Document toDocument(final Object key, final double[] slots, final List<Measure> measures) {
+        final var document = new Document("_id", key);
+
+        int slot = 0;
+
+        for (final var measure : measures) {
+            final var value = slots[slot++];
+
+            switch (measure.operator()) {
+                case SUM -> document.append(measure.name(), value(value));
+                case MIN, MAX -> document.append(measure.name(), Double.isInfinite(value) ? null : value(value));
+                case AVG -> {
+                    final var count = slots[slot++];
+
+                    document.append(measure.name(), count == 0 ? null : value / count);
+                }
+            }
+        }
+
+        return document;
+    }
+
+    /* Whole numbers are reported as longs, as $sum reports integer sums */
+
+    private static Object value(final double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 0x1p53)
+            return (long) value;
+
+        return value;
+    }
+
+    private static double number(final Object value, final double otherwise) {
+        return value instanceof Number number ? number.doubleValue() : otherwise;
+    }
+
+    /* A partial minimum or maximum; null when no document in the group had the field */
+
+    private static double extreme(final String name, final Object value, final double otherwise) {
+        if (value != null && !(value instanceof Number))
+            throw new IllegalArgumentException("Measure " + name + " is not numeric: " + value);
+
+        return number(value, otherwise);
+    }
+
+    /* Keys of one comparable type in their natural order, anything else by its string form */
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(final Document left, final Document right) {
+        final var a = left.get("_id");
+        final var b = right.get("_id");
+
+        if (a instanceof Comparable comparable && b != null && a.getClass() == b.getClass())
+            return comparable.compareTo(b);
+
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+}
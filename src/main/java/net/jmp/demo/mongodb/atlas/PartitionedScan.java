@@ -0,0 +1,287 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PartitionedScan.java  0.13.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.13.0
+ * @since     0.13.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Scans a collection with one cursor per key range, each
+ * on its own virtual thread. The ranges come either from
+ * $bucketAuto boundaries or from a sorted $sample of the
+ * key. All documents are handed to a single consumer on
+ * the calling thread; when ordering is requested every
+ * range is read in key order and the ranges are drained
+ * one after another while the later ones keep fetching.
+ */
+final class PartitionedScan {
+    enum Strategy {
+        BUCKET_AUTO,
+        SAMPLE
+    }
+
+    /* What a partition hands to the consuming thread */
+
+    private sealed interface Item permits Next, End, Failure {}
+    private record Next(Document document) implements Item {}
+    private record End() implements Item {}
+    private record Failure(MongoException exception) implements Item {}
+
+    private static final End END = new End();
+    private static final int SAMPLES_PER_PARTITION = 20;
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final String key;
+    private final int partitions;
+    private final Strategy strategy;
+    private final int queueCapacity;
+
+    PartitionedScan(final MongoCollection<Document> collection,
+                    final String key,
+                    final int partitions,
+                    final Strategy strategy,
+                    final int queueCapacity) {
+        super();
+
+        this.collection = collection;
+        this.key = key;
+        this.partitions = partitions;
+        this.strategy = strategy;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Scan the documents matching the filter.
+     *
+     * @param   filter      org.bson.conversions.Bson
+     * @param   projection  org.bson.conversions.Bson
+     * @param   ordered     boolean
+     * @param   consumer    java.util.function.Consumer&lt;org.bson.Document&gt;
+     * @return              long        The number of documents consumed
+     */
+    long scan(final Bson filter,
+              final Bson projection,
+              final boolean ordered,
+              final Consumer<Document> consumer) {
+        this.logger.entry(filter, projection, ordered, consumer);
+
+        final var ranges = this.ranges();
+        final List<BlockingQueue<Item>> queues = new ArrayList<>(ranges.size());
+
+        if (ordered) {
+            for (int i = 0; i < ranges.size(); i++)
+                queues.add(new ArrayBlockingQueue<>(this.queueCapacity));
+        } else {
+            final BlockingQueue<Item> shared = new ArrayBlockingQueue<>(this.queueCapacity * ranges.size());
+
+            for (int i = 0; i < ranges.size(); i++)
+                queues.add(shared);
+        }
+
+        long count = 0;
+
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ranges.size(); i++) {
+                final var range = ranges.get(i);
+                final var queue = queues.get(i);
+
+                executor.execute(() -> this.read(Filters.and(filter, range), projection, ordered, queue));
+            }
+
+            try {
+                count = ordered ? this.drainInOrder(queues, consumer) : this.drain(queues.getFirst(), ranges.size(), consumer);
+            } catch (final InterruptedException ie) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException re) {
+                executor.shutdownNow();     // A partition or the consumer failed; unblock the remaining partitions before rethrowing
+
+                throw re;
+            }
+        }
+
+        this.logger.exit(count);
+
+        return count;
+    }
+
+    /**
+     * Split the key space into contiguous ranges. Comparisons
+     * only match values of the boundary's type, so the
+     * boundaries are all of one type and the first range is
+     * everything not at or above the first boundary: values
+     * below it, documents without the key, and values of any
+     * other type. Every document with a single-valued key then
+     * falls in exactly one range; an array key can fall in
+     * several.
+     *
+     * @return  java.util.List&lt;org.bson.conversions.Bson&gt;
+     */
+    List<Bson> ranges() {
+        this.logger.entry();
+
+        final var boundaries = ofOneType(this.strategy == Strategy.BUCKET_AUTO ? this.bucketBoundaries() : this.sampleBoundaries());
+        final List<Bson> ranges = new ArrayList<>(boundaries.size() + 1);
+
+        BsonValue lower = null;
+
+        for (final var boundary : boundaries) {
+            ranges.add(lower == null ? Filters.not(Filters.gte(this.key, boundary)) : Filters.and(Filters.gte(this.key, lower), Filters.lt(this.key, boundary)));
+            lower = boundary;
+        }
+
+        ranges.add(lower == null ? Filters.empty() : Filters.gte(this.key, lower));
+
+        this.logger.info("Scanning {} in {} range(s) of {}", this.collection.getNamespace(), ranges.size(), this.key);
+        this.logger.exit(ranges);
+
+        return ranges;
+    }
+
+    private List<BsonValue> bucketBoundaries() {
+        final List<BsonValue> boundaries = new ArrayList<>();
+
+        this.collection.aggregate(List.of(Aggregates.bucketAuto("$" + this.key, this.partitions)), BsonDocument.class)
+                .forEach(bucket -> boundaries.add(bucket.getDocument("_id").get("max")));
+
+        if (!boundaries.isEmpty())
+            boundaries.removeLast();    // The last maximum is inclusive and bounds nothing
+
+        return boundaries;
+    }
+
+    /* Keep the boundaries of the most common type; numbers of any width compare with each other */
+
+    private static List<BsonValue> ofOneType(final List<BsonValue> boundaries) {
+        final Map<BsonType, List<BsonValue>> byType = new LinkedHashMap<>();
+
+        for (final var boundary : boundaries)
+            if (!boundary.isNull())
+                byType.computeIfAbsent(boundary.isNumber() || boundary.isDecimal128() ? BsonType.DOUBLE : boundary.getBsonType(),
+                        type -> new ArrayList<>()).add(boundary);
+
+        return byType.values().stream()
+                .max(Comparator.comparingInt(List::size))
+                .orElse(List.of());
+    }
+
+    private List<BsonValue> sampleBoundaries() {
+        final List<BsonValue> samples = new ArrayList<>();
+
+        this.collection.aggregate(List.of(
+                Aggregates.sample(this.partitions * SAMPLES_PER_PARTITION),
+                Aggregates.project(Projections.include(this.key)),
+                Aggregates.sort(Sorts.ascending(this.key))), BsonDocument.class)
+                .forEach(doc -> {
+                    final var value = doc.get(this.key);
+
+                    if (value != null)
+                        samples.add(value);
+                });
+
+        final List<BsonValue> boundaries = new ArrayList<>(this.partitions - 1);
+
+        for (int i = 1; i < this.partitions && !samples.isEmpty(); i++) {
+            final var boundary = samples.get(i * samples.size() / this.partitions);
+
+            if (boundaries.isEmpty() || !boundaries.getLast().equals(boundary))
+                boundaries.add(boundary);
+        }
+
+        return boundaries;
+    }
+
+    private void read(final Bson filter, final Bson projection, final boolean ordered, final BlockingQueue<Item> queue) {
+        try {
+            var iterable = this.collection.find(filter).projection(projection);
+
+            if (ordered)
+                iterable = iterable.sort(Sorts.ascending(this.key));
+
+            try (final var cursor = iterable.iterator()) {
+                while (cursor.hasNext())
+                    queue.put(new Next(cursor.next()));
+            }
+
+            queue.put(END);
+        } catch (final MongoException me) {
+            this.putQuietly(queue, new Failure(me));
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void putQuietly(final BlockingQueue<Item> queue, final Item item) {
+        try {
+            queue.put(item);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long drain(final BlockingQueue<Item> queue, final int producers, final Consumer<Document> consumer) throws InterruptedException {
+        long count = 0;
+        int running = producers;
+
+        while (running > 0) {
+            switch (queue.take()) {
+                case Next next -> {
+                    consumer.accept(next.document());
+                    count++;
+                }
+                case End end -> running--;
+                case Failure failure -> throw failure.exception();
+            }
+        }
+
+        return count;
+    }
+
+    private long drainInOrder(final List<BlockingQueue<Item>> queues, final Consumer<Document> consumer) throws InterruptedException {
+        long count = 0;
+
+        for (final var queue : queues)
+            count += this.drain(queue, 1, consumer);
+
+        return count;
+    }
+}
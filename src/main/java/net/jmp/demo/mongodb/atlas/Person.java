@@ -0,0 +1,34 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)Person.java   0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import org.bson.types.ObjectId;
+
+/**
+ * A document of the people collection. The identifier is
+ * null until the codec generates one on insert, and the
+ * location is null when the document has none.
+ *
+ * @param   id          org.bson.types.ObjectId
+ * @param   name        java.lang.String
+ * @param   age         int
+ * @param   location    java.lang.String
+ */
+record Person(ObjectId id, String name, int age, String location) {
+    Person(final String name, final int age) {
+        this(null, name, age, null);
+    }
+
+    Person withId(final ObjectId newId) {
+        return new Person(newId, this.name, this.age, this.location);
+    }
+}
@@ -0,0 +1,95 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PersonCodec.java  0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes and decodes a Person as {_id, name, age, location}.
+ * A null location is left out of the document.
+ */
+final class PersonCodec implements CollectibleCodec<Person> {
+    @Override
+    public void encode(final BsonWriter writer, final Person value, final EncoderContext encoderContext) {
+        writer.writeStartDocument();
+
+        if (value.id() != null)
+            writer.writeObjectId("_id", value.id());
+
+        RecordCodecs.writeNullableString(writer, "name", value.name());
+        writer.writeInt32("age", value.age());
+        RecordCodecs.writeNullableString(writer, "location", value.location());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Person decode(final BsonReader reader, final DecoderContext decoderContext) {
+        ObjectId id = null;
+        String name = null;
+        int age = 0;
+        String location = null;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> {
+                    if (reader.getCurrentBsonType() == BsonType.OBJECT_ID)
+                        id = reader.readObjectId();
+                    else
+                        reader.skipValue();
+                }
+                case "name" -> name = RecordCodecs.readNullableString(reader);
+                case "age" -> age = RecordCodecs.readInt(reader);
+                case "location" -> location = RecordCodecs.readNullableString(reader);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Person(id, name, age, location);
+    }
+
+    @Override
+    public Class<Person> getEncoderClass() {
+        return Person.class;
+    }
+
+    @Override
+    public Person generateIdIfAbsentFromDocument(final Person document) {
+        return document.id() == null ? document.withId(new ObjectId()) : document;
+    }
+
+    @Override
+    public boolean documentHasId(final Person document) {
+        return document.id() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(final Person document) {
+        if (document.id() == null)
+            throw new IllegalStateException("The person has no _id");
+
+        return new BsonObjectId(document.id());
+    }
+}
@@ -0,0 +1,129 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PlanShape.java    0.27.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.27.0
+ * @since     0.27.0
+ */
+
+import com.mongodb.ExplainVerbosity;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+/**
+ * A query or aggregation run by one of the operations, named
+ * after the method that runs it, so that its plan can be
+ * explained without running the operation. A find has a
+ * filter and optionally a projection, a sort and a limit; the
+ * projection is part of the shape because it decides whether
+ * a plan projects and whether an index covers it. An
+ * aggregation has a pipeline and no filter.
+ *
+ * @param   name        java.lang.String
+ * @param   filter      org.bson.conversions.Bson   Null for an aggregation
+ * @param   projection  org.bson.conversions.Bson   May be null
+ * @param   sort        org.bson.conversions.Bson   May be null
+ * @param   limit       int     Zero for no limit
+ * @param   pipeline    java.util.List&lt;org.bson.conversions.Bson&gt;   Null for a find
+ */
+record PlanShape(String name, Bson filter, Bson projection, Bson sort, int limit, List<Bson> pipeline) {
+    static PlanShape find(final String name, final Bson filter, final Bson projection, final Bson sort, final int limit) {
+        return new PlanShape(name, filter, projection, sort, limit, null);
+    }
+
+    static PlanShape aggregate(final String name, final List<Bson> pipeline) {
+        return new PlanShape(name, null, null, null, 0, List.copyOf(pipeline));
+    }
+
+    boolean isAggregation() {
+        return this.pipeline != null;
+    }
+
+    /**
+     * Run the shape as its operation does.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @return              com.mongodb.client.MongoIterable&lt;org.bson.Document&gt;
+     */
+    MongoIterable<Document> run(final MongoCollection<Document> collection) {
+        if (this.isAggregation())
+            return collection.aggregate(this.pipeline);
+
+        return this.findIterable(collection);
+    }
+
+    /**
+     * Explain the shape with execution statistics.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @return              org.bson.Document
+     */
+    Document explain(final MongoCollection<Document> collection) {
+        if (this.isAggregation())
+            return collection.aggregate(this.pipeline).explain(ExplainVerbosity.EXECUTION_STATS);
+
+        return this.findIterable(collection).explain(ExplainVerbosity.EXECUTION_STATS);
+    }
+
+    /**
+     * Find the first section of an explanation with the given
+     * name. An aggregation nests its query planner and its
+     * execution statistics inside its first stage, and a find
+     * has them at the top level.
+     *
+     * @param   explanation org.bson.Document
+     * @param   name        java.lang.String    For example queryPlanner or executionStats
+     * @return              org.bson.Document   Null when there is no such section
+     */
+    static Document section(final Document explanation, final String name) {
+        if (explanation.get(name) instanceof Document section)
+            return section;
+
+        for (final var value : explanation.values()) {
+            final var nested = switch (value) {
+                case Document document -> section(document, name);
+                case List<?> list -> list.stream()
+                        .filter(Document.class::isInstance)
+                        .map(element -> section((Document) element, name))
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .orElse(null);
+                case null, default -> null;
+            };
+
+            if (nested != null)
+                return nested;
+        }
+
+        return null;
+    }
+
+    private FindIterable<Document> findIterable(final MongoCollection<Document> collection) {
+        var iterable = collection.find(this.filter);
+
+        if (this.projection != null)
+            iterable = iterable.projection(this.projection);
+
+        if (this.sort != null)
+            iterable = iterable.sort(this.sort);
+
+        if (this.limit > 0)
+            iterable = iterable.limit(this.limit);
+
+        return iterable;
+    }
+}
@@ -0,0 +1,159 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PoolMetrics.java  0.19.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.19.0
+ * @since     0.19.0
+ */
+
+import com.mongodb.ServerAddress;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.Map;
+import java.util.Properties;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Reports on the connection pool of each server: how long
+ * operations waited to check a connection out, how many
+ * connections are open and in use, the most ever in use at
+ * once, and how many checkouts failed and why. A summary
+ * is logged at a fixed interval and when the client closes.
+ */
+final class PoolMetrics implements ConnectionPoolListener, AutoCloseable {
+    /* The state of one server's pool */
+
+    private static final class Pool {
+        private final Recorder checkoutWait = new Recorder(3);
+        private final Histogram cumulative = new Histogram(3);
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger peakInUse = new AtomicInteger();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder otherFailures = new LongAdder();
+
+        private Histogram intervalHistogram;
+
+        private synchronized Histogram snapshot() {
+            this.intervalHistogram = this.checkoutWait.getIntervalHistogram(this.intervalHistogram);
+            this.cumulative.add(this.intervalHistogram);
+
+            return this.cumulative;
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final Map<ServerAddress, Pool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reporter;
+
+    PoolMetrics(final Properties properties) {
+        super();
+
+        final var logSeconds = Long.parseLong(properties.getProperty("mongodb.metrics.logSeconds", "60"));
+
+        this.reporter = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("pool-metrics").factory());
+        this.reporter.scheduleAtFixedRate(this::logSummary, logSeconds, logSeconds, TimeUnit.SECONDS);
+    }
+
+    private Pool pool(final ServerAddress serverAddress) {
+        final var pool = this.pools.get(serverAddress);
+
+        return pool != null ? pool : this.pools.computeIfAbsent(serverAddress, address -> new Pool());
+    }
+
+    @Override
+    public void connectionPoolCreated(final ConnectionPoolCreatedEvent event) {
+        this.pool(event.getServerId().getAddress());
+
+        this.logger.info("Connection pool for {}: {}", event.getServerId().getAddress(), event.getSettings());
+    }
+
+    @Override
+    public void connectionCreated(final ConnectionCreatedEvent event) {
+        this.pool(event.getConnectionId().getServerId().getAddress()).open.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(final ConnectionClosedEvent event) {
+        this.pool(event.getConnectionId().getServerId().getAddress()).open.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(final ConnectionCheckedOutEvent event) {
+        final var pool = this.pool(event.getConnectionId().getServerId().getAddress());
+        final var inUse = pool.inUse.incrementAndGet();
+
+        pool.peakInUse.accumulateAndGet(inUse, Math::max);
+        pool.checkoutWait.recordValue(event.getElapsedTime(TimeUnit.MICROSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(final ConnectionCheckOutFailedEvent event) {
+        final var pool = this.pool(event.getServerId().getAddress());
+
+        pool.checkoutWait.recordValue(event.getElapsedTime(TimeUnit.MICROSECONDS));
+
+        if (event.getReason() == ConnectionCheckOutFailedEvent.Reason.TIMEOUT)
+            pool.timeouts.increment();
+        else
+            pool.otherFailures.increment();
+    }
+
+    @Override
+    public void connectionCheckedIn(final ConnectionCheckedInEvent event) {
+        this.pool(event.getConnectionId().getServerId().getAddress()).inUse.decrementAndGet();
+    }
+
+    private void logSummary() {
+        if (!this.logger.isInfoEnabled())
+            return;
+
+        this.pools.forEach((serverAddress, pool) -> {
+            final var histogram = pool.snapshot();
+
+            this.logger.info("Pool {}: open={} inUse={} peakInUse={} checkouts={} wait p50={}us p99={}us max={}us timeouts={} otherFailures={}",
+                    serverAddress,
+                    pool.open.get(),
+                    pool.inUse.get(),
+                    pool.peakInUse.get(),
+                    histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50.0),
+                    histogram.getValueAtPercentile(99.0),
+                    histogram.getMaxValue(),
+                    pool.timeouts.sum(),
+                    pool.otherFailures.sum());
+        });
+    }
+
+    @Override
+    public void close() {
+        this.reporter.shutdownNow();
+        this.logSummary();
+    }
+}
@@ -0,0 +1,245 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)PrefetchingCursor.java    0.16.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.16.0
+ * @since     0.16.0
+ */
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cursor that reads ahead of its consumer. A virtual thread
+ * drains the underlying cursor, and so issues the getMore
+ * round trips, into a queue holding up to the prefetch depth
+ * in batches while the consumer processes what is already
+ * there. Closing the cursor early stops the reader and closes
+ * the underlying cursor on the reader's thread, the only one
+ * that ever touches it once it has started; the server cursor
+ * and address are published by the reader as it goes.
+ *
+ * @param   <T> The type of document
+ */
+final class PrefetchingCursor<T> implements MongoCursor<T> {
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private record Failure(RuntimeException exception) {}
+
+    private final MongoCursor<T> cursor;
+    private final BlockingQueue<Object> queue;
+    private final Thread reader;
+
+    private volatile boolean closed;
+    private volatile ServerCursor serverCursor;
+    private volatile ServerAddress serverAddress;
+
+    private Object next;
+    private boolean exhausted;
+    private long waitNanos;
+    private long processNanos;
+    private long lastReturnNanos;
+
+    private PrefetchingCursor(final MongoCursor<T> cursor, final int capacity) {
+        super();
+
+        this.cursor = cursor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.serverCursor = cursor.getServerCursor();       // Read before the reader starts
+        this.serverAddress = cursor.getServerAddress();
+        this.reader = Thread.ofVirtual().name("prefetching-cursor").start(this::read);
+    }
+
+    /**
+     * Open a cursor over the iterable. A depth of zero or less
+     * returns the plain driver cursor.
+     *
+     * @param   <T>         The type of document
+     * @param   iterable    com.mongodb.client.MongoIterable&lt;T&gt;
+     * @param   batchSize   int     The cursor batch size; zero leaves the server default
+     * @param   depth       int     The number of batches to read ahead
+     * @return              com.mongodb.client.MongoCursor&lt;T&gt;
+     */
+    static <T> MongoCursor<T> open(final MongoIterable<T> iterable, final int batchSize, final int depth) {
+        final var batched = batchSize > 0 ? iterable.batchSize(batchSize) : iterable;
+
+        if (depth <= 0)
+            return batched.iterator();
+
+        return new PrefetchingCursor<>(batched.iterator(), depth * (batchSize > 0 ? batchSize : 101));
+    }
+
+    private void read() {
+        try {
+            while (!this.closed && this.cursor.hasNext()) {
+                final var document = this.cursor.next();
+
+                this.serverCursor = this.cursor.getServerCursor();     // Changes only when a batch is fetched
+                this.serverAddress = this.cursor.getServerAddress();
+
+                while (!this.closed && !this.queue.offer(document, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    // Re-check the closed flag at least this often
+                }
+            }
+
+            this.put(END);
+        } catch (final RuntimeException re) {
+            this.put(new Failure(re));
+        } catch (final InterruptedException ie) {
+            this.put(new Failure(new MongoInterruptedException("Interrupted prefetching documents", ie)));     // Before restoring the flag, which would fail the offer
+
+            Thread.currentThread().interrupt();
+        } finally {
+            this.cursor.close();
+            this.serverCursor = null;
+        }
+    }
+
+    private void put(final Object item) {
+        try {
+            while (!this.closed && !this.queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // Re-check the closed flag at least this often
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.closed)
+            throw new IllegalStateException("Cursor has been closed");
+
+        if (this.next == null && !this.exhausted) {
+            final var startNanos = System.nanoTime();
+
+            if (this.lastReturnNanos != 0)
+                this.processNanos += startNanos - this.lastReturnNanos;
+
+            try {
+                this.next = this.queue.take();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+
+                throw new MongoInterruptedException("Interrupted waiting for a prefetched document", ie);
+            }
+
+            this.waitNanos += System.nanoTime() - startNanos;
+            this.lastReturnNanos = 0;
+        }
+
+        if (this.next instanceof Failure failure) {
+            this.next = null;
+            this.exhausted = true;
+
+            throw failure.exception();
+        }
+
+        if (this.next == END) {
+            this.next = null;
+            this.exhausted = true;
+        }
+
+        return !this.exhausted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+
+        final var document = (T) this.next;
+
+        this.next = null;
+        this.lastReturnNanos = System.nanoTime();
+
+        return document;
+    }
+
+    @Override
+    public T tryNext() {
+        if (this.closed)
+            throw new IllegalStateException("Cursor has been closed");
+
+        if (this.next == null && !this.exhausted)
+            this.next = this.queue.poll();
+
+        if (this.next == null)
+            return null;
+
+        return this.hasNext() ? this.next() : null;
+    }
+
+    @Override
+    public int available() {
+        final var peeked = this.next != null && this.next != END && !(this.next instanceof Failure);
+
+        return this.queue.size() + (peeked ? 1 : 0);
+    }
+
+    @Override
+    public ServerCursor getServerCursor() {
+        return this.serverCursor;
+    }
+
+    @Override
+    public ServerAddress getServerAddress() {
+        return this.serverAddress;
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.exhausted = true;
+            this.next = null;
+
+            this.queue.clear();     // Let a reader blocked on a full queue see the flag
+
+            try {
+                this.reader.join();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+
+                throw new MongoException("Interrupted closing a prefetching cursor", ie);
+            }
+        }
+    }
+
+    /**
+     * The time the consumer spent blocked waiting for documents.
+     *
+     * @return  long
+     */
+    long getWaitNanos() {
+        return this.waitNanos;
+    }
+
+    /**
+     * The time the consumer spent between receiving a
+     * document and asking for the next one.
+     *
+     * @return  long
+     */
+    long getProcessNanos() {
+        return this.processNanos;
+    }
+}
@@ -1,6 +1,10 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Query.java    0.27.0  10/17/2026
+ * (#)Query.java    0.26.0  10/17/2026
+ * (#)Query.java    0.16.0  10/17/2026
+ * (#)Query.java    0.15.0  10/17/2026
  * (#)Query.java    0.9.0   12/07/2023
  * (#)Query.java    0.8.0   12/06/2023
  *
@@ -8,7 +12,7 @@ package net.jmp.demo.mongodb.atlas;
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.9.0
+ * @version   0.27.0
  * @since     0.8.0
  */
 
@@ -22,6 +26,7 @@ import com.mongodb.client.model.*;
 import java.util.*;
 
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 
 import org.bson.conversions.Bson;
 
@@ -34,9 +39,26 @@ final class Query {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final int batchSize;
+    private final int prefetchDepth;
     private final Bson projectionFields = Projections.fields(
             Projections.include("color", "qty", "vendor", "rating"),
             Projections.excludeId());
+    private final DocumentSink sink = new LogDocumentSink(this.logger);
+    private final Bson comparisonFilter = Filters.gt("qty", 7);
+    private final Bson comparisonSort = Sorts.orderBy(Sorts.descending("qty"), Sorts.ascending("color"));
+    private final Bson logicalFilter = Filters.and(Filters.lte("qty", 5), Filters.ne("color", "pink"));
+    private final Bson logicalSort = Sorts.orderBy(Sorts.descending("qty"), Sorts.ascending("color"));
+    private final Bson arraySizeFilter = Filters.size("vendor", 3);     // 3 elements in the array
+    private final Bson arraySizeSort = Sorts.ascending("color");
+    private final Bson elementFilter = Filters.exists("rating");
+    private final Bson elementSort = Sorts.ascending("rating");
+    private final Bson arrayValueFilter = Filters.eq("vendor", "A");
+    private final Bson arrayValueSort = Sorts.ascending("color");
+    private final Bson evaluationFilter = Filters.regex("color", "k$");
+    private final Bson evaluationSort = Sorts.ascending("color");
+    private final boolean adviseIndexes;
+    private final boolean createIndexes;
 
     Query(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -45,6 +67,10 @@ final class Query {
 
         this.dbName = properties.getProperty("mongodb.query.db", "training");
         this.collectionName = properties.getProperty("mongodb.query.collection", "colors");
+        this.batchSize = Integer.parseInt(properties.getProperty("mongodb.cursor.batchSize", "0"));
+        this.prefetchDepth = Integer.parseInt(properties.getProperty("mongodb.cursor.prefetch.depth", "0"));
+        this.adviseIndexes = Boolean.parseBoolean(properties.getProperty("mongodb.advisor.enabled", "false"));
+        this.createIndexes = Boolean.parseBoolean(properties.getProperty("mongodb.advisor.createIndexes", "false"));
     }
 
     void run() {
@@ -53,12 +79,15 @@ final class Query {
 
         this.insertData();
 
+        final List<String> indexNames = this.adviseIndexes ? this.adviseIndexes() : List.of();
+
         this.comparisonOperators();
         this.logicalOperators();
         this.arrayOperators();
         this.elementOperators();
         this.evaluationOperators();
 
+        this.dropIndexes(indexNames);
         this.deleteData();
 
         this.logger.info("Ending query operations...");
@@ -105,20 +134,15 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var filter = Filters.gt("qty", 7);
-
-        final var sort = Sorts.orderBy(
-                Sorts.descending("qty"),
-                Sorts.ascending("color")
-        );
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.comparisonFilter)
                 .projection(this.projectionFields)
-                .sort(sort)
-                .iterator()) {
-            Helpers.printCursor(cursor, "comparisonOperators", this.logger);
+                .sort(this.comparisonSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "comparisonOperators", this.sink, this.logger);
         }
 
         this.logger.exit();
@@ -128,24 +152,15 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        final var filter = Filters.and(
-                Filters.lte("qty", 5),
-                Filters.ne("color", "pink")
-        );
-
-        final var sort = Sorts.orderBy(
-                Sorts.descending("qty"),
-                Sorts.ascending("color")
-        );
-
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.logicalFilter)
                 .projection(this.projectionFields)
-                .sort(sort)
-                .iterator()) {
-            Helpers.printCursor(cursor, "logicalOperators", this.logger);
+                .sort(this.logicalSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "logicalOperators", this.sink, this.logger);
         }
 
         this.logger.exit();
@@ -164,15 +179,15 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var filter = Filters.size("vendor", 3);   // 3 elements in the array
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.arraySizeFilter)
                 .projection(this.projectionFields)
-                .sort(Sorts.ascending("color"))
-                .iterator()) {
-            Helpers.printCursor(cursor, "arraySizeOperator", this.logger);
+                .sort(this.arraySizeSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "arraySizeOperator", this.sink, this.logger);
         }
 
         this.logger.exit();
@@ -182,15 +197,15 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var filter = Filters.eq("vendor", "A");
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.arrayValueFilter)
                 .projection(this.projectionFields)
-                .sort(Sorts.ascending("color"))
-                .iterator()) {
-            Helpers.printCursor(cursor, "arrayValueOperator", this.logger);
+                .sort(this.arrayValueSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "arrayValueOperator", this.sink, this.logger);
         }
 
         this.logger.exit();
@@ -200,15 +215,15 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var filter = Filters.exists("rating");
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.elementFilter)
                 .projection(this.projectionFields)
-                .sort(Sorts.ascending("rating"))
-                .iterator()) {
-            Helpers.printCursor(cursor, "elementOperators", this.logger);
+                .sort(this.elementSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "elementOperators", this.sink, this.logger);
         }
 
         this.logger.exit();
@@ -218,15 +233,76 @@ final class Query {
         this.logger.entry();
 
         final var database = this.mongoClient.getDatabase(this.dbName);
-        final var collection = database.getCollection(this.collectionName);
-        final var filter = Filters.regex("color", "k$");
+        final var collection = database.getCollection(this.collectionName, RawBsonDocument.class);
 
-        try (final var cursor = collection
-                .find(filter)
+        try (final var cursor = PrefetchingCursor.open(collection
+                .find(this.evaluationFilter)
                 .projection(this.projectionFields)
-                .sort(Sorts.ascending("color"))
-                .iterator()) {
-            Helpers.printCursor(cursor, "evaluationOperators", this.logger);
+                .sort(this.evaluationSort),
+                this.batchSize,
+                this.prefetchDepth)) {
+            Helpers.printCursor(cursor, "evaluationOperators", this.sink, this.logger);
+        }
+
+        this.logger.exit();
+    }
+
+    /**
+     * The queries run by the operations.
+     *
+     * @return  java.util.List&lt;net.jmp.demo.mongodb.atlas.PlanShape&gt;
+     */
+    List<PlanShape> planShapes() {
+        return List.of(
+                PlanShape.find("comparisonOperators", this.comparisonFilter, this.projectionFields, this.comparisonSort, 0),
+                PlanShape.find("logicalOperators", this.logicalFilter, this.projectionFields, this.logicalSort, 0),
+                PlanShape.find("arraySizeOperator", this.arraySizeFilter, this.projectionFields, this.arraySizeSort, 0),
+                PlanShape.find("arrayValueOperator", this.arrayValueFilter, this.projectionFields, this.arrayValueSort, 0),
+                PlanShape.find("elementOperators", this.elementFilter, this.projectionFields, this.elementSort, 0),
+                PlanShape.find("evaluationOperators", this.evaluationFilter, this.projectionFields, this.evaluationSort, 0)
+        );
+    }
+
+    /*
+     * Explain the queries and propose, and optionally create,
+     * the indexes that would serve them.
+     */
+
+    private List<String> adviseIndexes() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        List<String> indexNames = List.of();
+
+        try {
+            indexNames = new IndexAdvisor(collection, this.createIndexes)
+                    .register(this.planShapes())
+                    .advise();
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit(indexNames);
+
+        return indexNames;
+    }
+
+    /* The query data is transient, and so are the indexes created for it */
+
+    private void dropIndexes(final List<String> indexNames) {
+        this.logger.entry(indexNames);
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        for (final var indexName : indexNames) {
+            try {
+                collection.dropIndex(indexName);
+            } catch (final MongoException me) {
+                this.logger.catching(me);
+            }
         }
 
         this.logger.exit();
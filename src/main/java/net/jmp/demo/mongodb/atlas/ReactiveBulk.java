@@ -0,0 +1,171 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)ReactiveBulk.java 0.20.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.20.0
+ * @since     0.20.0
+ */
+
+import com.mongodb.MongoBulkWriteException;
+
+import com.mongodb.client.model.*;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.bson.Document;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * The bulk workload on the reactive streams driver.
+ */
+final class ReactiveBulk {
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoClient mongoClient;
+    private final String dbName;
+    private final String collectionName;
+    private final long demand;
+
+    ReactiveBulk(final Properties properties, final MongoClient mongoClient) {
+        super();
+
+        this.mongoClient = mongoClient;
+
+        this.dbName = properties.getProperty("mongodb.bulk.db", "training");
+        this.collectionName = properties.getProperty("mongodb.bulk.collection", "colors");
+        this.demand = Long.parseLong(properties.getProperty("mongodb.reactive.demand", "64"));
+    }
+
+    void run() {
+        this.logger.entry();
+        this.logger.info("Beginning reactive bulk operations...");
+
+        this.insert();
+        this.printAllDocuments();
+
+        this.replace();
+        this.printAllDocuments();
+
+        this.update();
+        this.printAllDocuments();
+
+        this.delete();
+
+        this.logger.info("Ending reactive bulk operations...");
+        this.logger.exit();
+    }
+
+    private void printAllDocuments() {
+        ReactiveHelpers.printAllDocuments(this.mongoClient,
+                this.dbName,
+                this.collectionName,
+                this.demand,
+                this.logger);
+    }
+
+    private void insert() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        final List<WriteModel<Document>> bulkDocuments = List.of(
+                new InsertOneModel<>(new Document("name", "Karen Sandoval").append("age", 31)),
+                new InsertOneModel<>(new Document("name", "William Chin").append("age", 54)),
+                new InsertOneModel<>(new Document("name", "Shayla Ray").append("age", 20)),
+                new InsertOneModel<>(new Document("name", "June Carrie").append("age", 17)),
+                new InsertOneModel<>(new Document("name", "Kevin Moss").append("age", 22))
+        );
+
+        try {
+            final var result = DemandSubscriber.collect(collection.bulkWrite(bulkDocuments, new BulkWriteOptions().ordered(true))).getFirst();
+
+            this.logger.info("Documents inserted: {}", result.getInsertedCount());
+        } catch (final MongoBulkWriteException mbwe) {
+            this.logger.catching(mbwe);
+
+            mbwe.getWriteResult().getInserts()
+                    .forEach(doc -> this.logger.info("Inserted document: {}", doc.getId().asObjectId().getValue()));
+        }
+
+        this.logger.exit();
+    }
+
+    private void replace() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var filter = Filters.eq("name", "William Chin");
+
+        final List<WriteModel<Document>> bulkDocuments = List.of(new ReplaceOneModel<>(filter,
+                new Document("name", "Marina Squerciati")
+                        .append("age", 39)
+                        .append("location", "New York, NY")));
+
+        try {
+            final var result = DemandSubscriber.collect(collection.bulkWrite(bulkDocuments)).getFirst();
+
+            if (this.logger.isInfoEnabled()) {
+                this.logger.info("Documents matched: {}", result.getMatchedCount());
+                this.logger.info("Documents modified: {}", result.getModifiedCount());
+            }
+        } catch (final MongoBulkWriteException mbwe) {
+            this.logger.catching(mbwe);
+        }
+
+        this.logger.exit();
+    }
+
+    private void update() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        final List<WriteModel<Document>> bulkDocuments = List.of(
+                new UpdateOneModel<>(Filters.eq("name", "June Carrie"), Updates.set("age", 19)));
+
+        try {
+            final var result = DemandSubscriber.collect(collection.bulkWrite(bulkDocuments)).getFirst();
+
+            if (this.logger.isInfoEnabled()) {
+                this.logger.info("Documents matched: {}", result.getMatchedCount());
+                this.logger.info("Documents modified: {}", result.getModifiedCount());
+            }
+        } catch (final MongoBulkWriteException mbwe) {
+            this.logger.catching(mbwe);
+        }
+
+        this.logger.exit();
+    }
+
+    private void delete() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        final List<WriteModel<Document>> bulkDocuments = List.of(new DeleteManyModel<>(Filters.empty()));
+
+        try {
+            final var result = DemandSubscriber.collect(collection.bulkWrite(bulkDocuments, new BulkWriteOptions().ordered(false))).getFirst();
+
+            this.logger.info("Documents deleted: {}", result.getDeletedCount());
+        } catch (final MongoBulkWriteException mbwe) {
+            this.logger.catching(mbwe);
+        }
+
+        this.logger.exit();
+    }
+}
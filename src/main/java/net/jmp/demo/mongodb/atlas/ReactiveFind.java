@@ -0,0 +1,133 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)ReactiveFind.java 0.20.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.20.0
+ * @since     0.20.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+
+import java.util.Properties;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.lt;
+
+/**
+ * The find workload on the reactive streams driver. The
+ * multiple-document query is consumed through a demand
+ * subscriber, so the cursor fetches its next batch only as
+ * fast as the documents are logged.
+ */
+final class ReactiveFind {
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoClient mongoClient;
+    private final String dbName;
+    private final String collectionName;
+    private final int batchSize;
+    private final long demand;
+    private final Bson titleFilter = eq("title", "The Room");
+    private final Bson titleSort = Sorts.descending("imdb.rating");
+    private final Bson titleProjection = Projections.fields(
+            Projections.include("title", "imdb"),
+            Projections.excludeId());
+
+    ReactiveFind(final Properties properties, final MongoClient mongoClient) {
+        super();
+
+        this.mongoClient = mongoClient;
+
+        this.dbName = properties.getProperty("mongodb.find.db", "sample_mflix");
+        this.collectionName = properties.getProperty("mongodb.find.collection", "movies");
+        this.batchSize = Integer.parseInt(properties.getProperty("mongodb.cursor.batchSize", "0"));
+        this.demand = Long.parseLong(properties.getProperty("mongodb.reactive.demand", "64"));
+    }
+
+    void run() {
+        this.logger.entry();
+        this.logger.info("Beginning reactive find operations...");
+
+        try {
+            this.findOneDocument();
+            this.findMultipleDocuments();
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.info("Ending reactive find operations.");
+        this.logger.exit();
+    }
+
+    private void findOneDocument() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        final var documents = DemandSubscriber.collect(collection
+                .find(this.titleFilter)
+                .projection(this.titleProjection)
+                .sort(this.titleSort)
+                .first());
+
+        if (!documents.isEmpty()) {
+            if (this.logger.isInfoEnabled())
+                this.logger.info(documents.getFirst().toJson());
+        } else {
+            this.logger.info("No matching document(s) found: {}", "{'title': 'The Room'}");
+        }
+
+        this.logger.exit();
+    }
+
+    private void findMultipleDocuments() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+
+        final var projectionFields = Projections.fields(
+                Projections.include("title", "runtime", "imdb"),
+                Projections.excludeId());
+
+        var publisher = collection
+                .find(lt("runtime", 15))
+                .projection(projectionFields)
+                .sort(Sorts.descending("title"));
+
+        if (this.batchSize > 0)
+            publisher = publisher.batchSize(this.batchSize);
+
+        final var startNanos = System.nanoTime();
+
+        final var count = DemandSubscriber.consume(publisher, this.demand, document -> {
+            if (this.logger.isInfoEnabled())
+                this.logger.info(document.toJson());
+        });
+
+        this.logger.info("Consumed {} document(s) in {} ms with a demand of {}",
+                count,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                this.demand);
+
+        this.logger.exit();
+    }
+}
@@ -0,0 +1,43 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)ReactiveHelpers.java  0.20.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.20.0
+ * @since     0.20.0
+ */
+
+import com.mongodb.reactivestreams.client.MongoClient;
+
+import org.bson.RawBsonDocument;
+
+import org.slf4j.ext.XLogger;
+
+final class ReactiveHelpers {
+    private ReactiveHelpers() {
+        super();
+    }
+
+    static void printAllDocuments(final MongoClient mongoClient,
+                                  final String databaseName,
+                                  final String collectionName,
+                                  final long demand,
+                                  final XLogger logger) {
+        logger.entry(mongoClient, databaseName, collectionName, demand);
+
+        if (logger.isInfoEnabled()) {
+            final var sink = new LogDocumentSink(logger);
+            final var collection = mongoClient
+                    .getDatabase(databaseName)
+                    .getCollection(collectionName, RawBsonDocument.class);
+
+            DemandSubscriber.consume(collection.find(), demand, sink::write);
+        }
+
+        logger.exit();
+    }
+}
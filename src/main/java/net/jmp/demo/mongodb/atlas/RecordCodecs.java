@@ -0,0 +1,117 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)RecordCodecs.java 0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import com.mongodb.MongoClientSettings;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * The codecs for the Color, Person and Restaurant records,
+ * ahead of the driver's defaults in one registry, and the
+ * reading and writing helpers they share. The codecs read
+ * and write fields directly, without the intermediate map
+ * of boxed values that a Document is.
+ */
+final class RecordCodecs {
+    static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new ColorCodec(), new PersonCodec(), new RestaurantCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    private RecordCodecs() {
+        super();
+    }
+
+    /**
+     * Get a collection whose documents are the given record.
+     *
+     * @param   <T>             The type of record
+     * @param   database        com.mongodb.client.MongoDatabase
+     * @param   collectionName  java.lang.String
+     * @param   recordClass     java.lang.Class&lt;T&gt;
+     * @return                  com.mongodb.client.MongoCollection&lt;T&gt;
+     */
+    static <T> MongoCollection<T> getCollection(final MongoDatabase database,
+                                                final String collectionName,
+                                                final Class<T> recordClass) {
+        return database.getCollection(collectionName, recordClass).withCodecRegistry(REGISTRY);
+    }
+
+    /* Numbers written by other clients may not be 32-bit integers */
+
+    static int readInt(final BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> Math.toIntExact(reader.readInt64());
+            case DOUBLE -> (int) reader.readDouble();
+            default -> throw new BsonInvalidOperationException("Expected a number but found " + reader.getCurrentBsonType());
+        };
+    }
+
+    static double readDouble(final BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOUBLE -> reader.readDouble();
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            default -> throw new BsonInvalidOperationException("Expected a number but found " + reader.getCurrentBsonType());
+        };
+    }
+
+    static String readNullableString(final BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+
+            return null;
+        }
+
+        return reader.readString();
+    }
+
+    static void writeNullableString(final BsonWriter writer, final String name, final String value) {
+        if (value != null)
+            writer.writeString(name, value);
+    }
+
+    static List<String> readStrings(final BsonReader reader) {
+        final List<String> values = new ArrayList<>();
+
+        reader.readStartArray();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT)
+            values.add(reader.readString());
+
+        reader.readEndArray();
+
+        return List.copyOf(values);
+    }
+
+    static void writeStrings(final BsonWriter writer, final String name, final List<String> values) {
+        writer.writeStartArray(name);
+
+        for (final var value : values)
+            writer.writeString(value);
+
+        writer.writeEndArray();
+    }
+}
@@ -0,0 +1,58 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)Restaurant.java   0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+/**
+ * A document of the restaurants collection. The identifier
+ * is null until the codec generates one on insert.
+ *
+ * @param   id          org.bson.types.ObjectId
+ * @param   name        java.lang.String
+ * @param   contact     net.jmp.demo.mongodb.atlas.Restaurant.Contact
+ * @param   stars       int
+ * @param   categories  java.util.List&lt;java.lang.String&gt;
+ */
+record Restaurant(ObjectId id, String name, Contact contact, int stars, List<String> categories) {
+    /**
+     * The embedded contact document. The location is null
+     * when the document has none, so that none is invented.
+     *
+     * @param   phone       java.lang.String
+     * @param   email       java.lang.String
+     * @param   location    net.jmp.demo.mongodb.atlas.Restaurant.Location
+     */
+    record Contact(String phone, String email, Location location) {
+        Contact(final String phone, final String email, final double longitude, final double latitude) {
+            this(phone, email, new Location(longitude, latitude));
+        }
+    }
+
+    /**
+     * A point stored as a legacy coordinate pair, longitude first.
+     *
+     * @param   longitude   double
+     * @param   latitude    double
+     */
+    record Location(double longitude, double latitude) {}
+
+    Restaurant(final String name, final Contact contact, final int stars, final List<String> categories) {
+        this(null, name, contact, stars, categories);
+    }
+
+    Restaurant withId(final ObjectId newId) {
+        return new Restaurant(newId, this.name, this.contact, this.stars, this.categories);
+    }
+}
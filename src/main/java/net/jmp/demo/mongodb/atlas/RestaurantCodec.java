@@ -0,0 +1,173 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)RestaurantCodec.java  0.21.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.21.0
+ * @since     0.21.0
+ */
+
+import java.util.List;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes and decodes a Restaurant as {_id, name, contact:
+ * {phone, email, location: [longitude, latitude]}, stars,
+ * categories}. A location that is absent, or is not a pair
+ * of numbers, decodes as null and is not written back.
+ */
+final class RestaurantCodec implements CollectibleCodec<Restaurant> {
+    @Override
+    public void encode(final BsonWriter writer, final Restaurant value, final EncoderContext encoderContext) {
+        writer.writeStartDocument();
+
+        if (value.id() != null)
+            writer.writeObjectId("_id", value.id());
+
+        RecordCodecs.writeNullableString(writer, "name", value.name());
+
+        if (value.contact() != null)
+            this.encodeContact(writer, value.contact());
+
+        writer.writeInt32("stars", value.stars());
+
+        if (value.categories() != null)
+            RecordCodecs.writeStrings(writer, "categories", value.categories());
+
+        writer.writeEndDocument();
+    }
+
+    private void encodeContact(final BsonWriter writer, final Restaurant.Contact contact) {
+        writer.writeStartDocument("contact");
+        RecordCodecs.writeNullableString(writer, "phone", contact.phone());
+        RecordCodecs.writeNullableString(writer, "email", contact.email());
+
+        if (contact.location() != null) {
+            writer.writeStartArray("location");
+            writer.writeDouble(contact.location().longitude());
+            writer.writeDouble(contact.location().latitude());
+            writer.writeEndArray();
+        }
+
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Restaurant decode(final BsonReader reader, final DecoderContext decoderContext) {
+        ObjectId id = null;
+        String name = null;
+        Restaurant.Contact contact = null;
+        int stars = 0;
+        List<String> categories = List.of();
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> {
+                    if (reader.getCurrentBsonType() == BsonType.OBJECT_ID)
+                        id = reader.readObjectId();
+                    else
+                        reader.skipValue();
+                }
+                case "name" -> name = RecordCodecs.readNullableString(reader);
+                case "contact" -> contact = this.decodeContact(reader);
+                case "stars" -> stars = RecordCodecs.readInt(reader);
+                case "categories" -> categories = RecordCodecs.readStrings(reader);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Restaurant(id, name, contact, stars, categories);
+    }
+
+    private Restaurant.Contact decodeContact(final BsonReader reader) {
+        String phone = null;
+        String email = null;
+        Restaurant.Location location = null;
+
+        reader.readStartDocument();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "phone" -> phone = RecordCodecs.readNullableString(reader);
+                case "email" -> email = RecordCodecs.readNullableString(reader);
+                case "location" -> location = this.decodeLocation(reader);
+                default -> reader.skipValue();
+            }
+        }
+
+        reader.readEndDocument();
+
+        return new Restaurant.Contact(phone, email, location);
+    }
+
+    private Restaurant.Location decodeLocation(final BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+
+            return null;
+        }
+
+        final var coordinates = new double[2];
+
+        int count = 0;
+
+        reader.readStartArray();
+
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (count < 2 && isNumber(reader.getCurrentBsonType()))
+                coordinates[count++] = RecordCodecs.readDouble(reader);
+            else
+                reader.skipValue();
+        }
+
+        reader.readEndArray();
+
+        return count == 2 ? new Restaurant.Location(coordinates[0], coordinates[1]) : null;
+    }
+
+    private static boolean isNumber(final BsonType type) {
+        return type == BsonType.DOUBLE || type == BsonType.INT32 || type == BsonType.INT64;
+    }
+
+    @Override
+    public Class<Restaurant> getEncoderClass() {
+        return Restaurant.class;
+    }
+
+    @Override
+    public Restaurant generateIdIfAbsentFromDocument(final Restaurant document) {
+        return document.id() == null ? document.withId(new ObjectId()) : document;
+    }
+
+    @Override
+    public boolean documentHasId(final Restaurant document) {
+        return document.id() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(final Restaurant document) {
+        if (document.id() == null)
+            throw new IllegalStateException("The restaurant has no _id");
+
+        return new BsonObjectId(document.id());
+    }
+}
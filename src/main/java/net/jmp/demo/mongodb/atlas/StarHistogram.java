@@ -0,0 +1,436 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)StarHistogram.java    0.33.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.33.0
+ * @since     0.33.0
+ */
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Live counts of restaurants per category and star rating,
+ * kept in process. The counts are seeded once by grouping the
+ * collection in a snapshot session, and the change stream is
+ * then followed from just after the snapshot, so that no
+ * change is either missed or counted twice.
+ *
+ * <p>Each category is given an index on first sight, and the
+ * count for a category and a rating is one cell of an int
+ * array, six ratings to a category. Only the watcher thread
+ * writes the cells; a read is a single volatile array load,
+ * so reads never lock or wait for the writer.
+ *
+ * <p>An insert adds its document, a delete subtracts the
+ * document's pre-image, and an update or replace does both
+ * with the pre- and post-images. The images must be enabled
+ * on the collection, which starting the histogram attempts
+ * (MongoDB 6.0 or later). A change whose pre-image is missing
+ * cannot be undone and is counted as unresolved.
+ *
+ * <p>The counts are checkpointed with the last resume token
+ * every so many events and on close; a histogram started with
+ * a checkpoint resumes from it instead of seeding again.
+ */
+final class StarHistogram implements AutoCloseable {
+    static final int RATINGS = 6;
+
+    private static final String STARS = "stars";
+    private static final String CATEGORIES = "categories";
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoClient mongoClient;
+    private final MongoCollection<Document> source;
+    private final MongoCollection<Document> checkpoints;
+    private final String name;
+    private final int capacity;
+    private final int checkpointEvery;
+    private final Map<String, Integer> categoryIndexes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> categoryNames;
+    private final AtomicIntegerArray counts;
+    private final LongAdder events = new LongAdder();
+    private final LongAdder unresolved = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    /* Written only by the watcher thread, or before it starts and after it stops */
+
+    private int categories;
+    private BsonDocument resumeToken;
+    private BsonTimestamp startAt;
+    private int sinceCheckpoint;
+    private CollectionWatcher watcher;
+
+    /**
+     * Create a histogram of the collection.
+     *
+     * @param   mongoClient     com.mongodb.client.MongoClient
+     * @param   source          com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   checkpoints     com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   name            java.lang.String    The histogram's key in the checkpoints collection
+     * @param   capacity        int                 The most categories counted; later ones are ignored
+     * @param   checkpointEvery int                 Events between checkpoints
+     */
+    StarHistogram(final MongoClient mongoClient,
+                  final MongoCollection<Document> source,
+                  final MongoCollection<Document> checkpoints,
+                  final String name,
+                  final int capacity,
+                  final int checkpointEvery) {
+        super();
+
+        this.mongoClient = mongoClient;
+        this.source = source;
+        this.checkpoints = checkpoints;
+        this.name = name;
+        this.capacity = capacity;
+        this.checkpointEvery = Math.max(checkpointEvery, 1);
+        this.categoryNames = new AtomicReferenceArray<>(capacity);
+        this.counts = new AtomicIntegerArray(capacity * RATINGS);
+    }
+
+    /**
+     * Restore the counts from the checkpoint, or seed them when
+     * there is none, and start following the change stream.
+     * Returns false if the stream could not be opened, in
+     * which case the counts stay as seeded.
+     *
+     * @return  boolean
+     */
+    boolean start() {
+        this.logger.entry();
+
+        this.enableImages();
+
+        final var checkpoint = this.checkpoints.find(Filters.eq("_id", this.name)).first();
+
+        if (checkpoint != null) {
+            this.restore(checkpoint);
+
+            if (!this.watch()) {
+                this.logger.warn("Could not resume {} from its checkpoint; seeding it again", this.name);
+
+                this.reset();
+            }
+        }
+
+        if (this.watcher == null) {
+            this.seed();
+            this.watch();
+        }
+
+        final var watching = this.watcher != null;
+
+        this.logger.exit(watching);
+
+        return watching;
+    }
+
+    /**
+     * The number of restaurants in the category with the rating.
+     *
+     * @param   category    java.lang.String
+     * @param   stars       int
+     * @return              int
+     */
+    int count(final String category, final int stars) {
+        final var index = this.categoryIndexes.get(category);
+
+        if (index == null || stars < 0 || stars >= RATINGS)
+            return 0;
+
+        return this.counts.get(index * RATINGS + stars);
+    }
+
+    /**
+     * The counts of the category by rating, zero stars first.
+     *
+     * @param   category    java.lang.String
+     * @return              int[]
+     */
+    int[] counts(final String category) {
+        final var ratings = new int[RATINGS];
+        final var index = this.categoryIndexes.get(category);
+
+        if (index != null)
+            for (int stars = 0; stars < RATINGS; stars++)
+                ratings[stars] = this.counts.get(index * RATINGS + stars);
+
+        return ratings;
+    }
+
+    /**
+     * The counts of every category. Each cell is current when
+     * read, but cells changed while copying may come from
+     * either side of an event.
+     *
+     * @return  java.util.Map&lt;java.lang.String, int[]&gt;
+     */
+    Map<String, int[]> snapshot() {
+        final Map<String, int[]> snapshot = new LinkedHashMap<>();
+
+        for (int index = 0; index < this.capacity && this.categoryNames.get(index) != null; index++)
+            snapshot.put(this.categoryNames.get(index), this.counts(this.categoryNames.get(index)));
+
+        return snapshot;
+    }
+
+    long getEvents() {
+        return this.events.sum();
+    }
+
+    long getUnresolved() {
+        return this.unresolved.sum();
+    }
+
+    long getOverflowed() {
+        return this.overflowed.sum();
+    }
+
+    /**
+     * Stop following the change stream and checkpoint.
+     */
+    @Override
+    public void close() {
+        if (this.watcher != null) {
+            this.watcher.close();
+            this.watcher = null;
+
+            try {
+                this.checkpoint();
+            } catch (final MongoException me) {
+                this.logger.catching(me);
+            }
+        }
+    }
+
+    /**
+     * Remove the checkpoint, so that the next start seeds again.
+     */
+    void dropCheckpoint() {
+        this.checkpoints.deleteOne(Filters.eq("_id", this.name));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("categories=%d events=%d unresolved=%d overflowed=%d",
+                this.categoryIndexes.size(),
+                this.getEvents(),
+                this.getUnresolved(),
+                this.getOverflowed());
+    }
+
+    private void enableImages() {
+        try {
+            this.mongoClient.getDatabase(this.source.getNamespace().getDatabaseName())
+                    .runCommand(new Document("collMod", this.source.getNamespace().getCollectionName())
+                            .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (final MongoCommandException mce) {
+            this.logger.warn("Could not enable pre- and post-images on {}: {}", this.source.getNamespace(), mce.getErrorMessage());
+        }
+    }
+
+    /*
+     * Group the collection in a snapshot session and start the
+     * stream one tick after the snapshot's cluster time, so the
+     * first event seen is the first change the seed missed. Only
+     * array categories are counted, each distinct one once, the
+     * way the events are.
+     */
+
+    private void seed() {
+        this.logger.entry();
+
+        final var pipeline = List.of(
+                Aggregates.match(Filters.type(CATEGORIES, "array")),
+                Aggregates.set(new Field<>(CATEGORIES, new Document("$setUnion", List.of("$" + CATEGORIES, List.of())))),     // Once per distinct category, as add() counts
+                Aggregates.unwind("$" + CATEGORIES),
+                Aggregates.group(new Document("category", "$" + CATEGORIES).append(STARS, "$" + STARS), Accumulators.sum("count", 1)));
+
+        try (final var session = this.mongoClient.startSession(ClientSessionOptions.builder().snapshot(true).build())) {
+            for (final var group : this.source.aggregate(session, pipeline)) {
+                final var id = group.get("_id", Document.class);
+
+                if (id.get("category") instanceof String category && id.get(STARS) instanceof Integer stars)
+                    this.add(category, stars, group.getInteger("count"));
+            }
+
+            final var snapshot = session.getSnapshotTimestamp();
+
+            this.startAt = snapshot == null ? null : new BsonTimestamp(snapshot.getTime(), snapshot.getInc() + 1);
+            this.resumeToken = null;
+        }
+
+        this.logger.exit();
+    }
+
+    private boolean watch() {
+        final var token = this.resumeToken;
+        final var operationTime = this.startAt;
+
+        final var candidate = new CollectionWatcher(this.source,
+                stream -> {
+                    stream.fullDocument(FullDocument.WHEN_AVAILABLE).fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+
+                    if (token != null)
+                        stream.resumeAfter(token);
+                    else if (operationTime != null)
+                        stream.startAtOperationTime(operationTime);
+
+                    return stream;
+                },
+                this::apply);
+
+        if (candidate.awaitStarted()) {
+            this.watcher = candidate;
+
+            return true;
+        }
+
+        candidate.close();
+
+        return false;
+    }
+
+    private void apply(final ChangeStreamDocument<Document> event) {
+        switch (event.getOperationType()) {
+            case INSERT -> this.add(event.getFullDocument(), 1);
+            case UPDATE, REPLACE -> {
+                if (event.getFullDocumentBeforeChange() == null || event.getFullDocument() == null) {
+                    this.unresolved.increment();
+                } else {
+                    this.add(event.getFullDocumentBeforeChange(), -1);
+                    this.add(event.getFullDocument(), 1);
+                }
+            }
+            case DELETE -> {
+                if (event.getFullDocumentBeforeChange() == null)
+                    this.unresolved.increment();
+                else
+                    this.add(event.getFullDocumentBeforeChange(), -1);
+            }
+            default -> this.logger.debug("Ignoring a {} event", event.getOperationType());
+        }
+
+        this.resumeToken = event.getResumeToken();
+        this.events.increment();
+
+        if (++this.sinceCheckpoint >= this.checkpointEvery) {
+            try {
+                this.checkpoint();
+            } catch (final MongoException me) {
+                this.logger.catching(me);
+            }
+        }
+    }
+
+    /* Add or subtract a document once for each distinct category */
+
+    private void add(final Document document, final int delta) {
+        if (document != null
+                && document.get(STARS) instanceof Integer stars
+                && document.get(CATEGORIES) instanceof List<?> list) {
+            for (final var category : new LinkedHashSet<>(list))
+                if (category instanceof String string)
+                    this.add(string, stars, delta);
+        }
+    }
+
+    private void add(final String category, final int stars, final int delta) {
+        if (stars < 0 || stars >= RATINGS)
+            return;
+
+        var index = this.categoryIndexes.get(category);
+
+        if (index == null) {
+            if (this.categories == this.capacity) {
+                this.overflowed.increment();
+
+                return;
+            }
+
+            index = this.categories++;
+
+            this.categoryNames.set(index, category);
+            this.categoryIndexes.put(category, index);
+        }
+
+        this.counts.addAndGet(index * RATINGS + stars, delta);
+    }
+
+    private void checkpoint() {
+        final List<String> names = new ArrayList<>(this.categories);
+        final List<Integer> cells = new ArrayList<>(this.categories * RATINGS);
+
+        for (int index = 0; index < this.categories; index++)
+            names.add(this.categoryNames.get(index));
+
+        for (int cell = 0; cell < this.categories * RATINGS; cell++)
+            cells.add(this.counts.get(cell));
+
+        this.checkpoints.replaceOne(Filters.eq("_id", this.name),
+                new Document("_id", this.name)
+                        .append("resumeToken", this.resumeToken)
+                        .append("startAt", this.startAt)
+                        .append("categories", names)
+                        .append("counts", cells),
+                new ReplaceOptions().upsert(true));
+
+        this.sinceCheckpoint = 0;
+    }
+
+    private void restore(final Document checkpoint) {
+        final var names = checkpoint.getList("categories", String.class);
+        final var cells = checkpoint.getList("counts", Integer.class);
+
+        for (int index = 0; index < names.size() && index < this.capacity; index++)
+            for (int stars = 0; stars < RATINGS; stars++)
+                this.add(names.get(index), stars, cells.get(index * RATINGS + stars));
+
+        this.resumeToken = checkpoint.get("resumeToken") instanceof Document token ? token.toBsonDocument() : null;
+        this.startAt = checkpoint.get("startAt") instanceof BsonTimestamp timestamp ? timestamp : null;
+    }
+
+    private void reset() {
+        for (int cell = 0; cell < this.counts.length(); cell++)
+            this.counts.set(cell, 0);
+
+        this.resumeToken = null;
+        this.startAt = null;
+    }
+}
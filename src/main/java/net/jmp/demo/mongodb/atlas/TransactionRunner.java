@@ -0,0 +1,185 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)TransactionRunner.java    0.30.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.30.0
+ * @since     0.30.0
+ */
+
+import com.mongodb.MongoException;
+import com.mongodb.ReadConcern;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+
+import java.util.List;
+import java.util.Properties;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.Consumer;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Runs groups of small operations as multi-document
+ * transactions. Consecutive operations are grouped so that
+ * one commit covers several of them, and each group is run
+ * with ClientSession.withTransaction, which runs the group
+ * again on a TransientTransactionError and retries the
+ * commit on an UnknownTransactionCommitResult. The commit
+ * latency is the time from the end of the last run of a
+ * group to the return of withTransaction; a run that had to
+ * be repeated counts as an abort.
+ *
+ * <p>Transactions need a replica set; a single-node replica
+ * set started with mongod --replSet and rs.initiate() will do.
+ */
+final class TransactionRunner {
+    /**
+     * The totals so far.
+     *
+     * @param   committed       long    Transactions committed
+     * @param   failed          long    Transactions given up
+     * @param   operations      long    Operations committed
+     * @param   runs            long    Runs of a group, repeats included
+     * @param   aborted         long    Runs that did not commit
+     * @param   commitLatency   org.HdrHistogram.Histogram  Microseconds per commit
+     */
+    record Result(long committed,
+                  long failed,
+                  long operations,
+                  long runs,
+                  long aborted,
+                  Histogram commitLatency) {
+        double abortRate() {
+            return this.runs == 0 ? 0.0 : (double) this.aborted / this.runs;
+        }
+    }
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoClient mongoClient;
+    private final int groupSize;
+    private final TransactionOptions options;
+    private final Recorder commitLatency = new Recorder(3);
+    private final Histogram cumulative = new Histogram(3);
+
+    private long committed;
+    private long failed;
+    private long operations;
+    private long runs;
+    private long aborted;
+
+    TransactionRunner(final MongoClient mongoClient, final int groupSize, final TransactionOptions options) {
+        super();
+
+        this.mongoClient = mongoClient;
+        this.groupSize = Math.max(groupSize, 1);
+        this.options = options;
+    }
+
+    /**
+     * Create a runner from the mongodb.transactions.* keys.
+     * Transactions read a majority-committed snapshot and
+     * commit with a majority write concern.
+     *
+     * @param   properties  java.util.Properties
+     * @param   mongoClient com.mongodb.client.MongoClient
+     * @return              net.jmp.demo.mongodb.atlas.TransactionRunner
+     */
+    static TransactionRunner fromProperties(final Properties properties, final MongoClient mongoClient) {
+        final var options = TransactionOptions.builder()
+                .readConcern(ReadConcern.SNAPSHOT)
+                .writeConcern(WriteConcern.MAJORITY)
+                .maxCommitTime(Long.parseLong(properties.getProperty("mongodb.transactions.maxCommitTimeMillis", "5000")), TimeUnit.MILLISECONDS)
+                .build();
+
+        return new TransactionRunner(mongoClient,
+                Integer.parseInt(properties.getProperty("mongodb.transactions.groupSize", "10")),
+                options);
+    }
+
+    /**
+     * Run the operations, a group at a time, each group in a
+     * transaction of its own. A group that cannot be committed
+     * is logged and the following groups still run.
+     *
+     * @param   operations  java.util.List&lt;java.util.function.Consumer&lt;com.mongodb.client.ClientSession&gt;&gt;
+     */
+    void run(final List<Consumer<ClientSession>> operations) {
+        this.logger.entry(operations.size());
+
+        try (final var session = this.mongoClient.startSession()) {
+            for (int start = 0; start < operations.size(); start += this.groupSize) {
+                final var group = operations.subList(start, Math.min(start + this.groupSize, operations.size()));
+                final long[] bodyRuns = {0};
+                final long[] bodyEndNanos = {0};
+
+                try {
+                    session.withTransaction(() -> {
+                        bodyRuns[0]++;
+
+                        for (final var operation : group)
+                            operation.accept(session);
+
+                        bodyEndNanos[0] = System.nanoTime();
+
+                        return null;
+                    }, this.options);
+
+                    this.commitLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - bodyEndNanos[0]));
+                    this.committed++;
+                    this.operations += group.size();
+                    this.aborted += bodyRuns[0] - 1;
+                } catch (final MongoException me) {
+                    this.logger.catching(me);
+                    this.failed++;
+                    this.aborted += bodyRuns[0];
+                }
+
+                this.runs += bodyRuns[0];
+            }
+        }
+
+        this.logger.exit();
+    }
+
+    /**
+     * The totals so far.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.TransactionRunner.Result
+     */
+    Result getResult() {
+        this.cumulative.add(this.commitLatency.getIntervalHistogram());
+
+        return new Result(this.committed, this.failed, this.operations, this.runs, this.aborted, this.cumulative.copy());
+    }
+
+    @Override
+    public String toString() {
+        final var result = this.getResult();
+        final var latency = result.commitLatency();
+
+        return String.format("%d transaction(s) committed, %d failed; %d operation(s) in groups of %d; abort rate %.2f%%; commit p50 %d us, p99 %d us, max %d us",
+                result.committed(),
+                result.failed(),
+                result.operations(),
+                this.groupSize,
+                100.0 * result.abortRate(),
+                latency.getValueAtPercentile(50.0),
+                latency.getValueAtPercentile(99.0),
+                latency.getMaxValue());
+    }
+}
@@ -1,13 +1,14 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)UpdateAndReplace.java 0.24.0  10/17/2026
  * (#)UpdateAndReplace.java 0.8.0   12/06/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.8.0
+ * @version   0.24.0
  * @since     0.8.0
  */
 
@@ -19,8 +20,11 @@ import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Updates;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 
+import java.util.concurrent.TimeUnit;
+
 import org.bson.Document;
 
 import org.slf4j.LoggerFactory;
@@ -32,6 +36,10 @@ final class UpdateAndReplace {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final int coalescedUpdates;
+    private final int coalesceMaxPending;
+    private final long coalesceFlushMillis;
+    private final BulkRetry retry;
 
     UpdateAndReplace(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -40,6 +48,10 @@ final class UpdateAndReplace {
 
         this.dbName = properties.getProperty("mongodb.update.db", "training");
         this.collectionName = properties.getProperty("mongodb.update.collection", "colors");
+        this.coalescedUpdates = Integer.parseInt(properties.getProperty("mongodb.coalesce.updates", "0"));
+        this.coalesceMaxPending = Integer.parseInt(properties.getProperty("mongodb.coalesce.maxPending", "1000"));
+        this.coalesceFlushMillis = Long.parseLong(properties.getProperty("mongodb.coalesce.flushMillis", "100"));
+        this.retry = BulkRetry.fromProperties(properties);
     }
 
     void run() {
@@ -62,6 +74,9 @@ final class UpdateAndReplace {
                 this.collectionName,
                 this.logger);
 
+        if (this.coalescedUpdates > 0)
+            this.coalescedCounters();
+
         this.replaceOneDocument();
 
         Helpers.printOneDocument(this.mongoClient,
@@ -162,6 +177,43 @@ final class UpdateAndReplace {
         this.logger.exit();
     }
 
+    /*
+     * Apply a counter-heavy stream of updates to a handful of
+     * colors through the coalescing buffer: mostly increments,
+     * with a $set every tenth update and a $mul, which cannot
+     * be merged with a pending increment, every twenty-fifth.
+     */
+
+    private void coalescedCounters() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var colors = List.of("orange", "red", "blue", "green");
+        final var startNanos = System.nanoTime();
+
+        try (final var buffer = new CoalescingWriteBuffer<>(collection, this.retry, this.coalesceMaxPending, this.coalesceFlushMillis)) {
+            for (int i = 0; i < this.coalescedUpdates; i++) {
+                final var filter = Filters.eq("color", colors.get(i % colors.size()));
+
+                if (i % 25 == 24)
+                    buffer.updateOne(filter, Updates.mul("qty", 1), false);
+                else if (i % 10 == 9)
+                    buffer.updateOne(filter, Updates.set("comment", "Updated by coalesced update " + i), false);
+                else
+                    buffer.updateOne(filter, Updates.inc("qty", 1), false);
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.info("{} coalesced update(s) took {} ms",
+                this.coalescedUpdates,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        this.logger.exit();
+    }
+
     private void replaceOneDocument() {
         this.logger.entry();
 
@@ -1,13 +1,15 @@
 package net.jmp.demo.mongodb.atlas;
 
 /*
+ * (#)Upsert.java   0.25.0  10/17/2026
+ * (#)Upsert.java   0.24.0  10/17/2026
  * (#)Upsert.java   0.8.0   12/06/2023
  *
  * Copyright (c) Jonathan M. Parker
  * All Rights Reserved.
  *
  * @author    Jonathan Parker
- * @version   0.8.0
+ * @version   0.25.0
  * @since     0.8.0
  */
 
@@ -20,6 +22,8 @@ import com.mongodb.client.model.*;
 
 import java.util.*;
 
+import java.util.concurrent.Executors;
+
 import org.bson.Document;
 
 import org.slf4j.LoggerFactory;
@@ -31,6 +35,14 @@ final class Upsert {
     private final MongoClient mongoClient;
     private final String dbName;
     private final String collectionName;
+    private final int coalescedUpdates;
+    private final int coalesceMaxPending;
+    private final long coalesceFlushMillis;
+    private final int pipelineUpserts;
+    private final int pipelineThreads;
+    private final int pipelineBatchSize;
+    private final int pipelineDuplicateRetries;
+    private final BulkRetry retry;
 
     Upsert(final Properties properties, final MongoClient mongoClient) {
         super();
@@ -39,6 +51,14 @@ final class Upsert {
 
         this.dbName = properties.getProperty("mongodb.upsert.db", "training");
         this.collectionName = properties.getProperty("mongodb.upsert.collection", "colors");
+        this.coalescedUpdates = Integer.parseInt(properties.getProperty("mongodb.coalesce.updates", "0"));
+        this.coalesceMaxPending = Integer.parseInt(properties.getProperty("mongodb.coalesce.maxPending", "1000"));
+        this.coalesceFlushMillis = Long.parseLong(properties.getProperty("mongodb.coalesce.flushMillis", "100"));
+        this.pipelineUpserts = Integer.parseInt(properties.getProperty("mongodb.upsert.pipeline.upserts", "0"));
+        this.pipelineThreads = Integer.parseInt(properties.getProperty("mongodb.upsert.pipeline.threads", "4"));
+        this.pipelineBatchSize = Integer.parseInt(properties.getProperty("mongodb.upsert.pipeline.batchSize", "500"));
+        this.pipelineDuplicateRetries = Integer.parseInt(properties.getProperty("mongodb.upsert.pipeline.duplicateRetries", "3"));
+        this.retry = BulkRetry.fromProperties(properties);
     }
 
     void run() {
@@ -66,6 +86,24 @@ final class Upsert {
                 this.collectionName,
                 this.logger);
 
+        if (this.coalescedUpdates > 0) {
+            this.coalescedUpserts();
+
+            Helpers.printAllDocuments(this.mongoClient,
+                    this.dbName,
+                    this.collectionName,
+                    this.logger);
+        }
+
+        if (this.pipelineUpserts > 0) {
+            this.pipelinedUpserts();
+
+            Helpers.printAllDocuments(this.mongoClient,
+                    this.dbName,
+                    this.collectionName,
+                    this.logger);
+        }
+
         this.deleteData();
 
         this.logger.info("Ending upsert operations...");
@@ -146,6 +184,103 @@ final class Upsert {
         this.logger.exit();
     }
 
+    /*
+     * Upsert increments for a few colors, some of which do
+     * not exist yet, through the coalescing buffer.
+     */
+
+    private void coalescedUpserts() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var colors = List.of("orange", "red", "cyan", "magenta");
+
+        try (final var buffer = new CoalescingWriteBuffer<>(collection, this.retry, this.coalesceMaxPending, this.coalesceFlushMillis)) {
+            for (int i = 0; i < this.coalescedUpdates; i++)
+                buffer.updateOne(Filters.eq("color", colors.get(i % colors.size())), Updates.inc("quantity", 1), true);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit();
+    }
+
+    /*
+     * Upsert increments for a set of colors, most of which do
+     * not exist yet, from several threads at once through an
+     * upsert pipeline each. The unique index on color is
+     * dropped afterwards so that the other operations on the
+     * collection may still insert repeated colors.
+     */
+
+    private void pipelinedUpserts() {
+        this.logger.entry();
+
+        final var database = this.mongoClient.getDatabase(this.dbName);
+        final var collection = database.getCollection(this.collectionName);
+        final var colors = List.of("orange", "red", "cyan", "magenta", "teal", "maroon", "olive", "navy", "silver", "gold");
+
+        final String indexName;
+
+        try {
+            indexName = UpsertPipeline.ensureUniqueIndex(collection, "color");
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+            this.logger.exit();
+
+            return;
+        }
+
+        final List<UpsertPipeline> pipelines = new ArrayList<>(this.pipelineThreads);
+        final var startNanos = System.nanoTime();
+
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < this.pipelineThreads; t++) {
+                final var pipeline = new UpsertPipeline(collection, "color", indexName, this.retry, this.pipelineBatchSize, this.pipelineDuplicateRetries);
+                final var first = t;
+
+                pipelines.add(pipeline);
+
+                executor.execute(() -> {
+                    try (pipeline) {
+                        for (int i = first; i < this.pipelineUpserts; i += this.pipelineThreads)
+                            pipeline.upsert(colors.get(i % colors.size()),
+                                    new Document("source", "pipeline"),
+                                    new Document("quantity", 1));
+                    } catch (final MongoException me) {
+                        this.logger.catching(me);
+                    }
+                });
+            }
+        }
+
+        final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+
+        try {
+            if (this.logger.isInfoEnabled()) {
+                for (final var pipeline : pipelines)
+                    this.logger.info("{}", pipeline.getResult());
+
+                this.logger.info("{} upsert(s) in {} s; {} upserts/sec; {} duplicate color(s)",
+                        this.pipelineUpserts,
+                        String.format("%.2f", seconds),
+                        String.format("%.0f", this.pipelineUpserts / seconds),
+                        UpsertPipeline.countDuplicates(collection, "color"));
+            }
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        try {
+            collection.dropIndex(indexName);
+        } catch (final MongoException me) {
+            this.logger.catching(me);
+        }
+
+        this.logger.exit();
+    }
+
     private void deleteData() {
         this.logger.entry();
 
@@ -0,0 +1,265 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)UpsertPipeline.java   0.25.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.25.0
+ * @since     0.25.0
+ */
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * Upserts documents identified by a single key field. A
+ * unique index on the key makes concurrent upserts of the
+ * same key safe: only one of them can insert, and the losers
+ * fail with a duplicate key error instead of inserting a
+ * second document. Each upsert is an UpdateOneModel with
+ * $setOnInsert for the fields written only on insert and
+ * $inc for the counters. Upserts of the same key within a
+ * batch are merged into one operation, their increments
+ * summed, and each batch is written as an unordered
+ * bulkWrite through a BulkRetry. An operation that fails with
+ * a duplicate key error on the key's own unique index lost an
+ * insert race; resubmitted, it matches the document the winner
+ * inserted and updates it. Duplicate key errors on any other
+ * unique index would fail again and are reported as failures.
+ *
+ * <p>A pipeline is used by one thread; concurrent writers
+ * each use their own.
+ */
+final class UpsertPipeline implements AutoCloseable {
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+
+    /**
+     * The totals of the upserts written so far.
+     *
+     * @param   requested           long    Calls to upsert
+     * @param   merged              long    Calls merged into an earlier upsert of the same key
+     * @param   upserted            long    Documents inserted
+     * @param   matched             long    Documents updated
+     * @param   duplicateRetries    long    Operations resubmitted after losing an insert race
+     * @param   failed              long    Operations that could not be written
+     * @param   batches             long
+     */
+    record Result(long requested,
+                  long merged,
+                  long upserted,
+                  long matched,
+                  long duplicateRetries,
+                  long failed,
+                  long batches) {}
+
+    /* The merged upsert pending for one key */
+
+    private record Pending(Document insertOnly, Document increments) {}
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final String key;
+    private final String indexName;
+    private final BulkRetry retry;
+    private final int batchSize;
+    private final int maxDuplicateRetries;
+    private final Map<Object, Pending> pending = new LinkedHashMap<>();
+
+    private long requested;
+    private long merged;
+    private long upserted;
+    private long matched;
+    private long duplicateRetries;
+    private long failed;
+    private long batches;
+
+    /**
+     * Create a pipeline.
+     *
+     * @param   collection          com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   key                 java.lang.String    The field identifying a document
+     * @param   indexName           java.lang.String    The name of the unique index on the key
+     * @param   retry               net.jmp.demo.mongodb.atlas.BulkRetry
+     * @param   batchSize           int     The number of distinct keys written per bulkWrite
+     * @param   maxDuplicateRetries int     The number of times an operation that lost an insert race is resubmitted
+     */
+    UpsertPipeline(final MongoCollection<Document> collection,
+                   final String key,
+                   final String indexName,
+                   final BulkRetry retry,
+                   final int batchSize,
+                   final int maxDuplicateRetries) {
+        super();
+
+        this.collection = collection;
+        this.key = key;
+        this.indexName = indexName;
+        this.retry = retry;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxDuplicateRetries = maxDuplicateRetries;
+    }
+
+    /**
+     * Create the unique index on the key unless it exists. A
+     * collection that already holds duplicate keys cannot be
+     * given the index; the resulting exception is thrown.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;?&gt;
+     * @param   key         java.lang.String
+     * @return              java.lang.String    The name of the index
+     */
+    static String ensureUniqueIndex(final MongoCollection<?> collection, final String key) {
+        try {
+            return collection.createIndex(Indexes.ascending(key), new IndexOptions().unique(true));
+        } catch (final MongoCommandException mce) {
+            if (mce.getErrorCode() == INDEX_OPTIONS_CONFLICT || mce.getErrorCode() == INDEX_KEY_SPECS_CONFLICT)
+                throw new MongoException("A non-unique index on " + key + " already exists", mce);
+
+            throw mce;
+        }
+    }
+
+    /**
+     * Count the key values held by more than one document.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;?&gt;
+     * @param   key         java.lang.String
+     * @return              long
+     */
+    static long countDuplicates(final MongoCollection<?> collection, final String key) {
+        final var duplicates = collection.aggregate(List.of(
+                Aggregates.group("$" + key, Accumulators.sum("count", 1)),
+                Aggregates.match(Filters.gt("count", 1)),
+                Aggregates.count("duplicates")), Document.class).first();
+
+        return duplicates == null ? 0 : duplicates.getInteger("duplicates");
+    }
+
+    /**
+     * Upsert the document with the key value. Neither document
+     * may name the key, and no field may appear in both.
+     *
+     * @param   value       java.lang.Object
+     * @param   insertOnly  org.bson.Document   Fields set only when the document is inserted
+     * @param   increments  org.bson.Document   Numeric fields to increment
+     */
+    void upsert(final Object value, final Document insertOnly, final Document increments) {
+        if (insertOnly.isEmpty() && increments.isEmpty())
+            throw new IllegalArgumentException("An upsert needs at least one field to set or increment");
+
+        this.requested++;
+
+        final var existing = this.pending.get(value);
+
+        if (existing == null) {
+            this.pending.put(value, new Pending(new Document(insertOnly), new Document(increments)));
+
+            if (this.pending.size() >= this.batchSize)
+                this.flush();
+        } else {
+            insertOnly.forEach(existing.insertOnly()::putIfAbsent);  // The first upsert of a key wins on insert
+            increments.forEach((field, amount) -> existing.increments().merge(field, amount, UpsertPipeline::add));
+
+            this.merged++;
+        }
+    }
+
+    /**
+     * Write the pending upserts.
+     */
+    void flush() {
+        if (this.pending.isEmpty())
+            return;
+
+        this.logger.entry(this.pending.size());
+
+        List<UpdateOneModel<Document>> models = new ArrayList<>(this.pending.size());
+
+        for (final var entry : this.pending.entrySet())
+            models.add(this.toModel(entry.getKey(), entry.getValue()));
+
+        this.pending.clear();
+
+        for (int attempt = 0; !models.isEmpty(); attempt++) {
+            final var outcome = this.retry.bulkWrite(this.collection, models, new BulkWriteOptions().ordered(false));
+            final List<UpdateOneModel<Document>> lostRaces = new ArrayList<>();
+
+            this.batches++;
+            this.upserted += outcome.upserted();
+            this.matched += outcome.matched();
+            this.failed += outcome.exhausted() + outcome.notAttempted() + outcome.indeterminate();
+
+            for (final BulkWriteError error : outcome.permanentErrors()) {
+                if (this.indexName.equals(BulkRetry.duplicateKeyIndex(error)) && attempt < this.maxDuplicateRetries) {
+                    lostRaces.add(models.get(error.getIndex()));
+                } else {
+                    this.logger.warn("Upsert failed: {}", error.getMessage());
+                    this.failed++;
+                }
+            }
+
+            this.duplicateRetries += lostRaces.size();
+            models = lostRaces;
+        }
+
+        this.logger.exit();
+    }
+
+    /**
+     * The totals of the upserts written so far.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.UpsertPipeline.Result
+     */
+    Result getResult() {
+        return new Result(this.requested, this.merged, this.upserted, this.matched, this.duplicateRetries, this.failed, this.batches);
+    }
+
+    @Override
+    public void close() {
+        this.flush();
+    }
+
+    private UpdateOneModel<Document> toModel(final Object value, final Pending upsert) {
+        final List<Bson> updates = new ArrayList<>(2);
+
+        if (!upsert.insertOnly().isEmpty())
+            updates.add(new Document("$setOnInsert", upsert.insertOnly()));
+
+        if (!upsert.increments().isEmpty())
+            updates.add(new Document("$inc", upsert.increments()));
+
+        return new UpdateOneModel<>(Filters.eq(this.key, value), Updates.combine(updates), new UpdateOptions().upsert(true));
+    }
+
+    private static Object add(final Object left, final Object right) {
+        if (left instanceof Double || left instanceof Float || right instanceof Double || right instanceof Float)
+            return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+
+        final var sum = ((Number) left).longValue() + ((Number) right).longValue();
+
+        return left instanceof Integer && right instanceof Integer && sum == (int) sum ? (Object) (int) sum : (Object) sum;
+    }
+}
@@ -0,0 +1,325 @@
+package net.jmp.demo.mongodb.atlas;
+
+/*
+ * (#)WorkQueue.java    0.29.0  10/17/2026
+ *
+ * Copyright (c) Jonathan M. Parker
+ * All Rights Reserved.
+ *
+ * @author    Jonathan Parker
+ * @version   0.29.0
+ * @since     0.29.0
+ */
+
+import com.mongodb.MongoException;
+
+import com.mongodb.client.MongoCollection;
+
+import com.mongodb.client.model.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.function.Predicate;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.bson.Document;
+
+import org.bson.conversions.Bson;
+
+import org.bson.types.ObjectId;
+
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.ext.XLogger;
+
+/**
+ * A job queue kept in a collection. A job stays pending from
+ * its enqueue until it is acknowledged; claiming it does not
+ * change its status but moves its visibleAt to the end of a
+ * lease and gives it a new lease identifier. A claim is a
+ * findOneAndUpdate of the highest priority pending job that is
+ * visible now, so two consumers can never claim the same job,
+ * and a job whose consumer died becomes claimable again when
+ * its lease expires. Acknowledging or releasing a job only
+ * succeeds while the caller still holds its lease.
+ *
+ * <p>Leases are timed by the server's clock: the claim compares
+ * visibleAt with $$NOW and sets the lease end from it in a
+ * pipeline update, as does a release, so a consumer whose
+ * clock runs ahead cannot take a job whose lease is still
+ * live. Only the first visible time of an enqueued job comes
+ * from the enqueuing client's clock.
+ *
+ * <p>The claim is served entirely by the index on status,
+ * priority and visibleAt: an equality on the status, the sort
+ * on the priority and a range on the visible time, which
+ * the $expr comparison can use from MongoDB 5.0.
+ */
+final class WorkQueue {
+    static final String PENDING = "pending";
+    static final String DONE = "done";
+    static final String DEAD = "dead";
+
+    private static final String STATUS = "status";
+    private static final String PRIORITY = "priority";
+    private static final String VISIBLE_AT = "visibleAt";
+    private static final String LEASE = "lease";
+    private static final String ATTEMPTS = "attempts";
+    private static final String PAYLOAD = "payload";
+    private static final String NOW = "$$NOW";
+
+    /**
+     * A claimed job.
+     *
+     * @param   id          org.bson.types.ObjectId
+     * @param   payload     org.bson.Document
+     * @param   priority    int
+     * @param   attempts    int     The number of times the job has been claimed, this claim included
+     * @param   lease       org.bson.types.ObjectId
+     */
+    record Job(ObjectId id, Document payload, int priority, int attempts, ObjectId lease) {}
+
+    /**
+     * The results of draining the queue.
+     *
+     * @param   consumers       int
+     * @param   acked           long
+     * @param   nacked          long
+     * @param   lostLeases      long    Acks and nacks refused because the lease had expired
+     * @param   jobsPerSec      double
+     * @param   claimLatency    org.HdrHistogram.Histogram  Microseconds per successful claim
+     */
+    record DrainResult(int consumers, long acked, long nacked, long lostLeases, double jobsPerSec, Histogram claimLatency) {}
+
+    private final XLogger logger = new XLogger(LoggerFactory.getLogger(this.getClass().getName()));
+    private final MongoCollection<Document> collection;
+    private final BulkRetry retry;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final Recorder claimLatency = new Recorder(3);
+
+    /**
+     * Create a queue over the collection.
+     *
+     * @param   collection  com.mongodb.client.MongoCollection&lt;org.bson.Document&gt;
+     * @param   retry       net.jmp.demo.mongodb.atlas.BulkRetry
+     * @param   leaseMillis long    How long a claim is held before the job is claimable again
+     * @param   maxAttempts int     Claims after which a released job is dead rather than pending
+     * @param   batchSize   int     The number of jobs per insertMany when enqueuing
+     */
+    WorkQueue(final MongoCollection<Document> collection,
+              final BulkRetry retry,
+              final long leaseMillis,
+              final int maxAttempts,
+              final int batchSize) {
+        super();
+
+        this.collection = collection;
+        this.retry = retry;
+        this.leaseMillis = leaseMillis;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Create the claim index unless it exists.
+     *
+     * @return  java.lang.String    The name of the index
+     */
+    String ensureIndex() {
+        return this.collection.createIndex(Indexes.compoundIndex(
+                Indexes.ascending(STATUS),
+                Indexes.descending(PRIORITY),
+                Indexes.ascending(VISIBLE_AT)));
+    }
+
+    /**
+     * Enqueue jobs in batches of unordered inserts.
+     *
+     * @param   payloads    java.util.List&lt;org.bson.Document&gt;
+     * @param   priority    int     Higher priorities are claimed first
+     * @param   delayMillis long    How long before the jobs may be claimed
+     * @return              long    The number of jobs enqueued
+     */
+    long enqueue(final List<Document> payloads, final int priority, final long delayMillis) {
+        this.logger.entry(payloads.size(), priority, delayMillis);
+
+        final var visibleAt = new Date(System.currentTimeMillis() + delayMillis);
+
+        long enqueued = 0;
+
+        for (int start = 0; start < payloads.size(); start += this.batchSize) {
+            final var end = Math.min(start + this.batchSize, payloads.size());
+            final List<Document> jobs = new ArrayList<>(end - start);
+
+            for (final var payload : payloads.subList(start, end))
+                jobs.add(new Document(STATUS, PENDING)
+                        .append(PRIORITY, priority)
+                        .append(VISIBLE_AT, visibleAt)
+                        .append(ATTEMPTS, 0)
+                        .append(PAYLOAD, payload));
+
+            final var outcome = this.retry.insertMany(this.collection, jobs, new InsertManyOptions().ordered(false));
+
+            enqueued += outcome.inserted();
+
+            if (outcome.failed() > 0)
+                this.logger.warn("{} job(s) could not be enqueued", outcome.failed());
+        }
+
+        this.logger.exit(enqueued);
+
+        return enqueued;
+    }
+
+    /**
+     * Claim the highest priority job that is visible now.
+     *
+     * @return  net.jmp.demo.mongodb.atlas.WorkQueue.Job    Null when there is none
+     */
+    Job claim() {
+        final var startNanos = System.nanoTime();
+
+        final var document = this.collection.findOneAndUpdate(
+                Filters.and(Filters.eq(STATUS, PENDING), Filters.expr(new Document("$lte", List.of("$" + VISIBLE_AT, NOW)))),
+                List.of(Aggregates.set(
+                        new Field<>(VISIBLE_AT, this.fromNow(this.leaseMillis)),
+                        new Field<>(LEASE, new ObjectId()),
+                        new Field<>(ATTEMPTS, new Document("$add", List.of("$" + ATTEMPTS, 1))))),
+                new FindOneAndUpdateOptions()
+                        .sort(Sorts.orderBy(Sorts.descending(PRIORITY), Sorts.ascending(VISIBLE_AT)))
+                        .returnDocument(ReturnDocument.AFTER));
+
+        if (document == null)
+            return null;
+
+        this.claimLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+
+        return new Job(document.getObjectId("_id"),
+                document.get(PAYLOAD, Document.class),
+                document.getInteger(PRIORITY),
+                document.getInteger(ATTEMPTS),
+                document.getObjectId(LEASE));
+    }
+
+    /**
+     * Mark a claimed job done.
+     *
+     * @param   job net.jmp.demo.mongodb.atlas.WorkQueue.Job
+     * @return      boolean     False when the lease had expired and the job may have been claimed again
+     */
+    boolean ack(final Job job) {
+        return this.collection.updateOne(this.leased(job),
+                Updates.combine(Updates.set(STATUS, DONE), Updates.unset(LEASE))).getModifiedCount() == 1;
+    }
+
+    /**
+     * Release a claimed job to be claimed again after a delay,
+     * or mark it dead when it has used up its attempts.
+     *
+     * @param   job         net.jmp.demo.mongodb.atlas.WorkQueue.Job
+     * @param   delayMillis long
+     * @return              boolean     False when the lease had expired and the job may have been claimed again
+     */
+    boolean nack(final Job job, final long delayMillis) {
+        final List<Bson> update = job.attempts() >= this.maxAttempts
+                ? List.of(Aggregates.set(new Field<>(STATUS, DEAD)), Aggregates.unset(LEASE))
+                : List.of(Aggregates.set(new Field<>(VISIBLE_AT, this.fromNow(delayMillis))), Aggregates.unset(LEASE));
+
+        return this.collection.updateOne(this.leased(job), update).getModifiedCount() == 1;
+    }
+
+    /**
+     * Claim and handle jobs on virtual threads until none is
+     * visible. A job the handler accepts is acknowledged; one
+     * it rejects, or that throws, is released after the delay.
+     *
+     * @param   consumers       int
+     * @param   handler         java.util.function.Predicate&lt;org.bson.Document&gt;
+     * @param   nackDelayMillis long
+     * @return                  net.jmp.demo.mongodb.atlas.WorkQueue.DrainResult
+     */
+    DrainResult drain(final int consumers, final Predicate<Document> handler, final long nackDelayMillis) {
+        this.logger.entry(consumers, handler, nackDelayMillis);
+
+        final var acked = new LongAdder();
+        final var nacked = new LongAdder();
+        final var lostLeases = new LongAdder();
+        final var startNanos = System.nanoTime();
+
+        this.claimLatency.reset();
+
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < consumers; i++) {
+                executor.execute(() -> {
+                    try {
+                        Job job;
+
+                        while ((job = this.claim()) != null) {
+                            boolean handled;
+
+                            try {
+                                handled = handler.test(job.payload());
+                            } catch (final RuntimeException re) {
+                                this.logger.catching(re);
+
+                                handled = false;
+                            }
+
+                            if (!(handled ? this.ack(job) : this.nack(job, nackDelayMillis)))
+                                lostLeases.increment();
+                            else if (handled)
+                                acked.increment();
+                            else
+                                nacked.increment();
+                        }
+                    } catch (final MongoException me) {
+                        this.logger.catching(me);
+                    }
+                });
+            }
+        }
+
+        final var seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+        final var result = new DrainResult(consumers,
+                acked.sum(),
+                nacked.sum(),
+                lostLeases.sum(),
+                acked.sum() / seconds,
+                this.claimLatency.getIntervalHistogram());
+
+        this.logger.exit(result);
+
+        return result;
+    }
+
+    /**
+     * Count the jobs with the status.
+     *
+     * @param   status  java.lang.String
+     * @return          long
+     */
+    long count(final String status) {
+        return this.collection.countDocuments(Filters.eq(STATUS, status));
+    }
+
+    /* The server's time plus the delay, for a pipeline update */
+
+    private Document fromNow(final long delayMillis) {
+        return new Document("$add", List.of(NOW, delayMillis));
+    }
+
+    private Bson leased(final Job job) {
+        return Filters.and(Filters.eq("_id", job.id()), Filters.eq(LEASE, job.lease()));
+    }
+}